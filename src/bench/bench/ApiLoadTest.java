@@ -0,0 +1,82 @@
+package bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load test for a running API: {@code clients} concurrent callers
+ * each issue GET requests for {@code seconds}, then throughput and latency
+ * percentiles are printed. Run it once against the default server and once with
+ * {@code --stable.web.virtual-threads=true} (Java 21+), with more clients than
+ * Tomcat's 200 worker threads, and compare.
+ *
+ * <pre>
+ * mvn -P benchmarks test-compile exec:java -Dexec.mainClass=bench.ApiLoadTest \
+ *     -Dexec.args="http://localhost:8080/api/horse?limit=50 1000 30"
+ * </pre>
+ */
+public class ApiLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/horse?limit=50");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<List<Long>> latencies = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int i = 0; i < clients; i++) {
+            List<Long> own = new ArrayList<>();
+            latencies.add(own);
+            Thread caller = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long started = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        own.add(System.nanoTime() - started);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            caller.setDaemon(true);
+            caller.start();
+        }
+        done.await();
+
+        List<Long> all = new ArrayList<>();
+        latencies.forEach(all::addAll);
+        Collections.sort(all);
+        System.out.printf("%s, %d clients, %d s%n", uri, clients, seconds);
+        System.out.printf("requests %,d (%.0f/s), errors %,d%n", all.size(), all.size() / (double) seconds, errors.get());
+        System.out.printf("latency ms  p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
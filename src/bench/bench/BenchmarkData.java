@@ -0,0 +1,102 @@
+package bench;
+
+import model.*;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import util.HibernateUtil;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic datasets shared by the benchmarks.
+ */
+final class BenchmarkData {
+    /** In-memory H2 database used by every benchmark fork instead of ./stable_db */
+    static final String DB_URL = "-Dstable.db.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+
+    private static final String[] BREEDS = {
+        "Arabian", "Shire", "Thoroughbred", "Mustang", "Pony", "Friesian",
+        "Andalusian", "Appaloosa", "Quarter Horse", "Paint", "Haflinger", "Lipizzaner"
+    };
+    private static final HorseCondition[] CONDITIONS = HorseCondition.values();
+
+    private BenchmarkData() {}
+
+    static Horse horse(Random random, int index) {
+        return new Horse("Horse" + index, BREEDS[random.nextInt(BREEDS.length)],
+                random.nextBoolean() ? HorseType.HOT_BLOODED : HorseType.COLD_BLOODED,
+                CONDITIONS[random.nextInt(CONDITIONS.length)],
+                1 + random.nextInt(25), 1000 + random.nextInt(50_000), 200 + random.nextInt(700));
+    }
+
+    static Stable stable(String name, int horses, long seed) {
+        Random random = new Random(seed);
+        Stable stable = new Stable(name, horses);
+        try {
+            for (int i = 0; i < horses; i++) {
+                stable.addHorse(horse(random, i));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not build stable " + name, e);
+        }
+        return stable;
+    }
+
+    static List<Stable> stables(int stables, int horsesPerStable) {
+        List<Stable> result = new ArrayList<>(stables);
+        for (int i = 0; i < stables; i++) {
+            result.add(stable("Stable" + i, horsesPerStable, i));
+        }
+        return result;
+    }
+
+    /**
+     * Inserts the stables and their horses, committing every thousand rows.
+     */
+    static void persist(List<Stable> stables) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            int pending = 0;
+            for (Stable stable : stables) {
+                session.save(stable);
+                for (Horse horse : stable.getHorseList()) {
+                    session.save(horse);
+                }
+                pending += 1 + stable.getHorseList().size();
+                if (pending >= 1000) {
+                    session.flush();
+                    session.clear();
+                    transaction.commit();
+                    transaction = session.beginTransaction();
+                    pending = 0;
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    static void writeHorseCsv(String filename, int rows, List<String> stableNames) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+            writer.write("Name,Breed,Type,Condition,Age,Price,Weight,StableName");
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                Horse horse = horse(random, i);
+                writer.write(horse.getName() + "," + horse.getBreed() + "," + horse.getType().name() + ","
+                        + horse.getCondition().name() + "," + horse.getAge() + "," + horse.getPrice() + ","
+                        + horse.getWeightKg() + "," + stableNames.get(i % stableNames.size()));
+                writer.newLine();
+            }
+        }
+    }
+
+    static void clearDatabase() {
+        util.TestDatabaseUtil.clearDatabase();
+        util.SecondLevelCache.evictAll();
+    }
+}
@@ -0,0 +1,78 @@
+package bench;
+
+import model.Stable;
+import org.openjdk.jmh.annotations.*;
+import service.CSVService;
+import service.ImportReport;
+import util.HibernateUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * CSVService import and export of a synthetic horse file against embedded H2.
+ * Every invocation imports into an emptied horses table.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = BenchmarkData.DB_URL)
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private CSVService csvService;
+    private List<Stable> stables;
+    private File input;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csvService = new CSVService();
+        input = File.createTempFile("bench-horses", ".csv");
+        output = File.createTempFile("bench-export", ".csv");
+        stables = BenchmarkData.stables(20, 0);
+        BenchmarkData.writeHorseCsv(input.getAbsolutePath(), rows,
+                stables.stream().map(Stable::getStableName).collect(Collectors.toList()));
+    }
+
+    @Setup(Level.Invocation)
+    public void resetDatabase() {
+        BenchmarkData.clearDatabase();
+        BenchmarkData.persist(BenchmarkData.stables(20, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        input.delete();
+        output.delete();
+        HibernateUtil.shutdown();
+    }
+
+    @Benchmark
+    public void importRowByRow() throws IOException {
+        csvService.importHorsesFromCSV(input.getAbsolutePath());
+    }
+
+    @Benchmark
+    public ImportReport importBatched() throws IOException {
+        return csvService.importHorsesFromCSVBatched(input.getAbsolutePath());
+    }
+
+    @Benchmark
+    public ImportReport importParallel() throws IOException {
+        return csvService.importHorsesFromCSVParallel(input.getAbsolutePath());
+    }
+
+    @Benchmark
+    public void importThenExport() throws IOException {
+        csvService.importHorsesFromCSVBatched(input.getAbsolutePath());
+        csvService.exportHorsesToCSV(output.getAbsolutePath());
+    }
+}
@@ -0,0 +1,52 @@
+package bench;
+
+import dao.StableDAO;
+import dao.StableDAOImpl;
+import model.Stable;
+import org.openjdk.jmh.annotations.*;
+import util.HibernateUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StableDAO listing against an embedded H2 database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkData.DB_URL)
+@State(Scope.Benchmark)
+public class DaoBenchmark {
+
+    @Param({"100", "1000"})
+    public int stables;
+
+    @Param({"10"})
+    public int horsesPerStable;
+
+    private StableDAO stableDAO;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.clearDatabase();
+        BenchmarkData.persist(BenchmarkData.stables(stables, horsesPerStable));
+        stableDAO = new StableDAOImpl();
+    }
+
+    @TearDown
+    public void tearDown() {
+        HibernateUtil.shutdown();
+    }
+
+    @Benchmark
+    public List<Stable> findAll() {
+        return stableDAO.findAll();
+    }
+
+    @Benchmark
+    public List<Stable> findAllWithHorses() {
+        return stableDAO.findAllWithHorses();
+    }
+}
@@ -0,0 +1,148 @@
+package bench;
+
+import model.Horse;
+import model.HorseCondition;
+import org.openjdk.jmh.annotations.*;
+import util.DataSourceProvider;
+import util.HibernateUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Horse lookups at a million rows, on the mapped horses table ("after", with
+ * the indexes declared on Horse) and on an unindexed copy of it ("before").
+ * Plain JDBC so both tables run the same statements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkData.DB_URL, "-Xmx2g"})
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+    private static final int STABLES = 1000;
+
+    @Param({"1000000"})
+    public int horses;
+
+    @Param({"horses", "horses_unindexed"})
+    public String table;
+
+    private Connection connection;
+    private PreparedStatement byName;
+    private PreparedStatement byNameIgnoreCase;
+    private PreparedStatement byStableAndCondition;
+    private List<Long> stableIds;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkData.clearDatabase(); // also creates the schema
+        connection = DataSourceProvider.getDataSource().getConnection();
+        stableIds = insert(connection, horses);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS horses_unindexed");
+            statement.execute("CREATE TABLE horses_unindexed AS SELECT * FROM horses");
+        }
+        byName = connection.prepareStatement("SELECT id FROM " + table + " WHERE name = ?");
+        byNameIgnoreCase = connection.prepareStatement("SELECT id FROM " + table + " WHERE name_lower = ?");
+        byStableAndCondition = connection.prepareStatement(
+                "SELECT id FROM " + table + " WHERE stable_id = ? AND condition = ?");
+        random = new Random(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS horses_unindexed");
+        }
+        connection.close();
+        BenchmarkData.clearDatabase();
+        HibernateUtil.shutdown();
+    }
+
+    @Benchmark
+    public int findByName() throws SQLException {
+        byName.setString(1, name(random.nextInt(horses)));
+        return count(byName);
+    }
+
+    @Benchmark
+    public int findByNameIgnoreCase() throws SQLException {
+        byNameIgnoreCase.setString(1, name(random.nextInt(horses)).toLowerCase(Locale.ROOT));
+        return count(byNameIgnoreCase);
+    }
+
+    @Benchmark
+    public int findByStableAndCondition() throws SQLException {
+        byStableAndCondition.setLong(1, stableIds.get(random.nextInt(stableIds.size())));
+        byStableAndCondition.setString(2, HorseCondition.values()[random.nextInt(HorseCondition.values().length)].name());
+        return count(byStableAndCondition);
+    }
+
+    private static String name(int index) {
+        return "Horse" + index; // as generated by BenchmarkData.horse
+    }
+
+    private static int count(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /** Batch inserts the stables and horses directly, a Hibernate load of a million rows takes minutes. */
+    private static List<Long> insert(Connection connection, int horses) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        List<Long> ids = new ArrayList<>(STABLES);
+        try (PreparedStatement insertStable = connection.prepareStatement(
+                "INSERT INTO stables (stableName, maxCapacity) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int s = 0; s < STABLES; s++) {
+                insertStable.setString(1, "Index Stable " + s);
+                insertStable.setInt(2, horses / STABLES + 1);
+                insertStable.executeUpdate();
+                try (ResultSet keys = insertStable.getGeneratedKeys()) {
+                    keys.next();
+                    ids.add(keys.getLong(1));
+                }
+            }
+        }
+        Random random = new Random(42);
+        try (PreparedStatement insertHorse = connection.prepareStatement("INSERT INTO horses "
+                + "(name, breed, type, condition, age, price, weightKg, stable_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < horses; i++) {
+                Horse horse = BenchmarkData.horse(random, i);
+                insertHorse.setString(1, horse.getName());
+                insertHorse.setString(2, horse.getBreed());
+                insertHorse.setString(3, horse.getType().name());
+                insertHorse.setString(4, horse.getCondition().name());
+                insertHorse.setInt(5, horse.getAge());
+                insertHorse.setDouble(6, horse.getPrice());
+                insertHorse.setDouble(7, horse.getWeightKg());
+                insertHorse.setLong(8, ids.get(i % STABLES));
+                insertHorse.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insertHorse.executeBatch();
+                    connection.commit();
+                }
+            }
+            insertHorse.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(autoCommit);
+        return ids;
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import model.Horse;
+import model.Stable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory hot paths of the model: stable search and sorting and the
+ * case-insensitive Horse equality used by every list lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private Stable stable;
+    private List<Horse> horses;
+    private String lastName;
+
+    @Setup
+    public void setUp() {
+        stable = BenchmarkData.stable("Model", size, 7);
+        horses = stable.getHorseList();
+        lastName = horses.get(horses.size() - 1).getName();
+    }
+
+    @Benchmark
+    public List<Horse> searchPartial() {
+        return stable.searchPartial("ara");
+    }
+
+    @Benchmark
+    public Horse searchByName() {
+        return stable.search(lastName);
+    }
+
+    @Benchmark
+    public List<Horse> sortByName() {
+        return stable.sortByName();
+    }
+
+    @Benchmark
+    public List<Horse> sortByPrice() {
+        return stable.sortByPrice();
+    }
+
+    @Benchmark
+    public void equalsAndHashCode(Blackhole blackhole) {
+        Horse previous = horses.get(0);
+        for (Horse horse : horses) {
+            blackhole.consume(horse.hashCode());
+            blackhole.consume(horse.equals(previous));
+            previous = horse;
+        }
+    }
+}
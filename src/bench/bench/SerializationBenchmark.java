@@ -0,0 +1,55 @@
+package bench;
+
+import model.Stable;
+import org.openjdk.jmh.annotations.*;
+import service.SerializationService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SerializationService round trip of a list of stables with their horses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"100"})
+    public int stables;
+
+    @Param({"100"})
+    public int horsesPerStable;
+
+    private SerializationService serializationService;
+    private List<Stable> data;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        serializationService = new SerializationService();
+        data = BenchmarkData.stables(stables, horsesPerStable);
+        file = File.createTempFile("bench-stables", ".ser");
+        serializationService.saveStables(data, file.getAbsolutePath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void saveStables() throws IOException {
+        serializationService.saveStables(data, file.getAbsolutePath());
+    }
+
+    @Benchmark
+    public List<Stable> loadStables() throws IOException, ClassNotFoundException {
+        return serializationService.loadStables(file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,71 @@
+package bench;
+
+import model.Stable;
+import org.openjdk.jmh.annotations.*;
+import service.SerializationService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary snapshot against Java serialization for the same stables. The
+ * default sizes give one million horses.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"1000"})
+    public int stables;
+
+    @Param({"1000"})
+    public int horsesPerStable;
+
+    private SerializationService serializationService;
+    private List<Stable> data;
+    private File snapshot;
+    private File legacy;
+
+    @Setup
+    public void setUp() throws IOException {
+        serializationService = new SerializationService();
+        data = BenchmarkData.stables(stables, horsesPerStable);
+        snapshot = File.createTempFile("bench-snapshot", ".ser");
+        legacy = File.createTempFile("bench-legacy", ".ser");
+        serializationService.saveStables(data, snapshot.getAbsolutePath());
+        serializationService.saveStablesLegacy(data, legacy.getAbsolutePath());
+        System.out.printf("%nsnapshot %,d bytes, java serialization %,d bytes%n", snapshot.length(), legacy.length());
+    }
+
+    @TearDown
+    public void tearDown() {
+        snapshot.delete();
+        legacy.delete();
+    }
+
+    @Benchmark
+    public void writeSnapshot() throws IOException {
+        serializationService.saveStables(data, snapshot.getAbsolutePath());
+    }
+
+    @Benchmark
+    public void writeJavaSerialization() throws IOException {
+        serializationService.saveStablesLegacy(data, legacy.getAbsolutePath());
+    }
+
+    @Benchmark
+    public List<Stable> readSnapshot() throws IOException, ClassNotFoundException {
+        return serializationService.loadStables(snapshot.getAbsolutePath());
+    }
+
+    @Benchmark
+    public List<Stable> readJavaSerialization() throws IOException, ClassNotFoundException {
+        return serializationService.loadStables(legacy.getAbsolutePath());
+    }
+}
@@ -0,0 +1,108 @@
+package bench;
+
+import dao.StableDAO;
+import dao.StableDAOImpl;
+import facade.StableFacade;
+import model.*;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import util.HibernateUtil;
+import util.SecondLevelCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changing one horse's condition through the old session-per-DAO-call pattern
+ * (lookup in one session, session.update of the detached graph in another)
+ * against the facade's single-column UPDATE. The JDBC statements per operation
+ * are printed when each trial ends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkData.DB_URL)
+@State(Scope.Benchmark)
+public class UnitOfWorkBenchmark {
+    private static final String STABLE = "UoW Benchmark Stable";
+
+    @Param({"50"})
+    public int horses;
+
+    @Param({"false", "true"})
+    public boolean coldCache;
+
+    private StableFacade facade;
+    private StableDAO stableDAO;
+    private Statistics stats;
+    private long statementsBefore;
+    private long operations;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkData.clearDatabase();
+        facade = new StableFacade();
+        stableDAO = new StableDAOImpl();
+        facade.addStable(STABLE, horses + 1);
+        for (int i = 0; i < horses; i++) {
+            facade.addHorseToStable(STABLE, "Horse" + i, "Arabian", HorseType.HOT_BLOODED,
+                    HorseCondition.HEALTHY, 5, 10000.0, 450.0);
+        }
+        stats = HibernateUtil.getSessionFactory().getStatistics();
+        stats.setStatisticsEnabled(true);
+        statementsBefore = stats.getPrepareStatementCount();
+    }
+
+    // Per-invocation setup is fine here, every operation takes well over a millisecond
+    @Setup(Level.Invocation)
+    public void evict() {
+        if (coldCache) {
+            SecondLevelCache.evictAll();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%.1f statements/op%n",
+                (double) (stats.getPrepareStatementCount() - statementsBefore) / operations);
+        HibernateUtil.shutdown();
+    }
+
+    @Benchmark
+    public void legacySessionPerCall() throws Exception {
+        legacyChangeCondition("Horse0", conditionFor(operations++));
+    }
+
+    @Benchmark
+    public void singleColumnUpdate() throws Exception {
+        facade.changeHorseCondition(STABLE, "Horse0", conditionFor(operations++));
+    }
+
+    private static HorseCondition conditionFor(long operation) {
+        return operation % 2 == 0 ? HorseCondition.TRAINING : HorseCondition.HEALTHY;
+    }
+
+    /**
+     * The facade's former implementation: the stable is looked up through the
+     * DAO's own session and the detached graph is re-attached with update(),
+     * which cascades an UPDATE to every horse of the stable.
+     */
+    private void legacyChangeCondition(String horseName, HorseCondition condition) throws Exception {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            Stable stable = stableDAO.findByName(STABLE);
+            Horse horse = stable.search(horseName);
+            stable.changeCondition(horse, condition);
+            session.update(stable);
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+}
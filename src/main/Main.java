@@ -4,6 +4,7 @@ import exceptions.StableException;
 import facade.DataGenerator;
 import facade.StableFacade;
 import ui.LoginView;
+import util.HibernateStatistics;
 
 /**
  * Main JavaFX Application entry point
@@ -16,6 +17,8 @@ public class Main extends Application {
         try {
             // Initialize facade and data
             facade = new StableFacade();
+            // Query and cache counters for jconsole/VisualVM
+            HibernateStatistics.registerMBean();
             DataGenerator.getInstance().generateSampleData(facade);
             
             // Show login screen
@@ -0,0 +1,68 @@
+package dao;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import util.HibernateUtil;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Session handling shared by the DAO implementations. Calls join the
+ * {@link UnitOfWork} open on the current thread; without one each call runs in
+ * its own short session (and transaction, for writes) as before.
+ */
+abstract class BaseDAO {
+
+    protected <T> T read(String action, Function<Session, T> work) {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            try {
+                return work.apply(unitOfWork.getSession());
+            } catch (Exception e) {
+                throw new RuntimeException("Error " + action + ": " + e.getMessage(), e);
+            }
+        }
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return work.apply(session);
+        } catch (Exception e) {
+            throw new RuntimeException("Error " + action + ": " + e.getMessage(), e);
+        }
+    }
+
+    protected void write(String action, Consumer<Session> work) {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            try {
+                work.accept(unitOfWork.getSession());
+                return;
+            } catch (Exception e) {
+                throw new RuntimeException("Error " + action + ": " + e.getMessage(), e);
+            }
+        }
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            work.accept(session);
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw new RuntimeException("Error " + action + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs the action once the write is visible to other sessions: right away
+     * without a unit of work, otherwise after the unit of work has ended.
+     */
+    protected void afterWrite(Runnable action) {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.afterCompletion(action);
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package dao;
 
 import model.Horse;
+import model.HorseCondition;
 import java.util.List;
 
 public interface HorseDAO {
@@ -9,6 +10,16 @@ public interface HorseDAO {
     void delete(Horse horse);
     Horse findById(Long id);
     Horse findByName(String name);
+    List<Horse> findByNameIgnoreCase(String name);
     List<Horse> findAll();
     List<Horse> findByStableId(Long stableId);
+    long countByStableId(Long stableId);
+    List<Horse> findByStableIdAndCondition(Long stableId, HorseCondition condition);
+    List<Horse> findPage(Long afterId, int limit);
+    List<Horse> find(HorseQuery query);
+    int updateCondition(Long horseId, HorseCondition condition);
+    int updateWeight(Long horseId, double weightKg);
+    int updateConditionInStable(String stableName, String horseName, HorseCondition condition);
+    int updateWeightInStable(String stableName, String horseName, double weightKg);
+    int updateConditionWhere(HorseFilter filter, HorseCondition condition);
 }
@@ -1,97 +1,203 @@
 package dao;
 
 import model.Horse;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import model.HorseCondition;
 import org.hibernate.query.Query;
-import util.HibernateUtil;
+import util.SecondLevelCache;
 
 import java.util.List;
+import java.util.Locale;
 
-public class HorseDAOImpl implements HorseDAO {
+public class HorseDAOImpl extends BaseDAO implements HorseDAO {
 
     @Override
     public void save(Horse horse) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.save(horse);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error saving horse: " + e.getMessage(), e);
-        }
+        write("saving horse", session -> session.save(horse));
+        evictOwningStable(horse);
     }
 
     @Override
     public void update(Horse horse) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.update(horse);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error updating horse: " + e.getMessage(), e);
-        }
+        write("updating horse", session -> session.update(horse));
+        evictOwningStable(horse);
     }
 
     @Override
     public void delete(Horse horse) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.delete(horse);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error deleting horse: " + e.getMessage(), e);
+        write("deleting horse", session -> session.delete(horse));
+        evictOwningStable(horse);
+    }
+
+    // The cached Stable holds the occupancy count, which changes with its horses.
+    // Evicted after commit, so a concurrent reader cannot cache the old count again
+    private void evictOwningStable(Horse horse) {
+        if (horse.getStable() != null) {
+            Long stableId = horse.getStable().getId();
+            afterWrite(() -> SecondLevelCache.evictStable(stableId));
         }
     }
 
     @Override
     public Horse findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Horse.class, id);
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding horse by id: " + e.getMessage(), e);
-        }
+        return read("finding horse by id", session -> session.get(Horse.class, id));
     }
 
     @Override
     public Horse findByName(String name) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return read("finding horse by name", session -> {
             Query<Horse> query = session.createQuery("FROM Horse WHERE name = :name", Horse.class);
             query.setParameter("name", name);
             return query.uniqueResult();
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding horse by name: " + e.getMessage(), e);
-        }
+        });
+    }
+
+    /**
+     * Horses whose name matches ignoring case, through the indexed name_lower column.
+     */
+    @Override
+    public List<Horse> findByNameIgnoreCase(String name) {
+        return read("finding horses by name ignoring case", session -> {
+            Query<Horse> query = session.createQuery("FROM Horse WHERE nameLower = :name", Horse.class);
+            query.setParameter("name", name.toLowerCase(Locale.ROOT));
+            return query.list();
+        });
     }
 
     @Override
     public List<Horse> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("FROM Horse", Horse.class).list();
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding all horses: " + e.getMessage(), e);
-        }
+        return read("finding all horses", session -> session.createQuery("FROM Horse", Horse.class).list());
     }
 
     @Override
     public List<Horse> findByStableId(Long stableId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return read("finding horses by stable id", session -> {
             Query<Horse> query = session.createQuery("FROM Horse h WHERE h.stable.id = :stableId", Horse.class);
             query.setParameter("stableId", stableId);
             return query.list();
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding horses by stable id: " + e.getMessage(), e);
-        }
+        });
+    }
+
+    @Override
+    public long countByStableId(Long stableId) {
+        return read("counting horses by stable id", session ->
+                session.createQuery("SELECT COUNT(h) FROM Horse h WHERE h.stable.id = :stableId", Long.class)
+                        .setParameter("stableId", stableId)
+                        .uniqueResult());
+    }
+
+    @Override
+    public List<Horse> findByStableIdAndCondition(Long stableId, HorseCondition condition) {
+        return read("finding horses by stable id and condition", session -> {
+            Query<Horse> query = session.createQuery(
+                    "FROM Horse h JOIN FETCH h.stable s WHERE s.id = :stableId AND h.condition = :condition ORDER BY h.id",
+                    Horse.class);
+            query.setParameter("stableId", stableId);
+            query.setParameter("condition", condition);
+            return query.list();
+        });
+    }
+
+    /**
+     * Keyset page ordered by id: returns up to {@code limit} horses with an id
+     * greater than {@code afterId} (or from the start when null). Unlike an
+     * OFFSET the cost of a page does not depend on how deep the client is.
+     */
+    @Override
+    public List<Horse> findPage(Long afterId, int limit) {
+        return read("finding horse page", session -> {
+            Query<Horse> query = session.createQuery(
+                    "FROM Horse h LEFT JOIN FETCH h.stable WHERE h.id > :afterId ORDER BY h.id", Horse.class);
+            query.setParameter("afterId", afterId != null ? afterId : 0L);
+            query.setMaxResults(limit);
+            return query.list();
+        });
+    }
+
+    /**
+     * Runs a filtered, sorted and limited query in the database; only the
+     * requested page of horses is transferred.
+     */
+    @Override
+    public List<Horse> find(HorseQuery horseQuery) {
+        return read("querying horses", session -> {
+            Query<Horse> query = session.createQuery(horseQuery.toHql(), Horse.class);
+            horseQuery.getFilter().bind(query);
+            if (horseQuery.getAfterId() != null) {
+                query.setParameter("afterId", horseQuery.getAfterId());
+            }
+            if (horseQuery.getLimit() != null) {
+                query.setMaxResults(horseQuery.getLimit());
+            }
+            return query.list();
+        });
+    }
+
+    // Single-column updates: one UPDATE statement, nothing is loaded. VERSIONED
+    // bumps the version like an entity update, and Hibernate evicts the cached
+    // horses after a bulk statement. Each returns the number of rows changed.
+
+    @Override
+    public int updateCondition(Long horseId, HorseCondition condition) {
+        return updateById("updating horse condition", "condition", condition, horseId);
+    }
+
+    @Override
+    public int updateWeight(Long horseId, double weightKg) {
+        return updateById("updating horse weight", "weightKg", weightKg, horseId);
+    }
+
+    /**
+     * Updates one horse of that name (ignoring case, as Stable.search does) in
+     * the named stable: the first one by id when several share the name.
+     */
+    @Override
+    public int updateConditionInStable(String stableName, String horseName, HorseCondition condition) {
+        return updateInStable("updating horse condition", "condition", condition, stableName, horseName);
+    }
+
+    @Override
+    public int updateWeightInStable(String stableName, String horseName, double weightKg) {
+        return updateInStable("updating horse weight", "weightKg", weightKg, stableName, horseName);
+    }
+
+    /**
+     * Sets the condition of every horse the filter matches in one bulk UPDATE.
+     */
+    @Override
+    public int updateConditionWhere(HorseFilter filter, HorseCondition condition) {
+        int[] rows = new int[1];
+        write("updating horse conditions", session -> {
+            Query<?> query = session.createQuery(
+                    "UPDATE VERSIONED Horse SET condition = :newCondition WHERE " + filter.where(null));
+            query.setParameter("newCondition", condition);
+            filter.bind(query);
+            rows[0] = query.executeUpdate();
+        });
+        return rows[0];
+    }
+
+    private int updateById(String action, String property, Object value, Long horseId) {
+        int[] rows = new int[1];
+        write(action, session -> rows[0] = session.createQuery(
+                        "UPDATE VERSIONED Horse SET " + property + " = :value WHERE id = :id")
+                .setParameter("value", value)
+                .setParameter("id", horseId)
+                .executeUpdate());
+        return rows[0];
+    }
+
+    private int updateInStable(String action, String property, Object value, String stableName, String horseName) {
+        int[] rows = new int[1];
+        write(action, session -> rows[0] = session.createQuery(
+                        // Names are unique only together with breed and age, so pick one
+                        // horse: the first by id, the one Stable.search finds in the id-ordered list
+                        "UPDATE VERSIONED Horse SET " + property + " = :value WHERE id = "
+                                + "(SELECT MIN(c.id) FROM Horse c JOIN c.stable s "
+                                + "WHERE c.nameLower = :name AND s.stableName = :stableName)")
+                .setParameter("value", value)
+                .setParameter("name", horseName.toLowerCase(Locale.ROOT))
+                .setParameter("stableName", stableName)
+                .executeUpdate());
+        return rows[0];
     }
 }
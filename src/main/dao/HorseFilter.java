@@ -0,0 +1,145 @@
+package dao;
+
+import model.HorseCondition;
+import model.HorseType;
+import org.hibernate.query.Query;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Horse selection by stable, breed, type, condition, age and price range and
+ * name or breed text, turned into an HQL condition so the database does the
+ * filtering. Unset criteria match every horse.
+ *
+ * <pre>
+ * HorseFilter.all().stableName("North Farm").breed("Arabian").ages(3, 10)
+ * </pre>
+ */
+public class HorseFilter {
+    private Long stableId;
+    private String stableName;
+    private String breed;
+    private HorseType type;
+    private HorseCondition condition;
+    private Integer minAge;
+    private Integer maxAge;
+    private Double minPrice;
+    private Double maxPrice;
+    private String text;
+
+    public static HorseFilter all() {
+        return new HorseFilter();
+    }
+
+    public HorseFilter stableId(Long stableId) { this.stableId = stableId; return this; }
+    public HorseFilter stableName(String stableName) { this.stableName = stableName; return this; }
+    /** Breed, ignoring case. */
+    public HorseFilter breed(String breed) { this.breed = breed; return this; }
+    public HorseFilter type(HorseType type) { this.type = type; return this; }
+    public HorseFilter condition(HorseCondition condition) { this.condition = condition; return this; }
+    /** Inclusive age range, either bound may be null. */
+    public HorseFilter ages(Integer minAge, Integer maxAge) {
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new IllegalArgumentException("Minimum age " + minAge + " is above maximum age " + maxAge);
+        }
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    /** Inclusive price range, either bound may be null. */
+    public HorseFilter prices(Double minPrice, Double maxPrice) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("Minimum price " + minPrice + " is above maximum price " + maxPrice);
+        }
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+    /** Name or breed containing the text, ignoring case. */
+    public HorseFilter text(String text) { this.text = text; return this; }
+
+    public Long getStableId() { return stableId; }
+    public String getStableName() { return stableName; }
+    public String getBreed() { return breed; }
+    public HorseType getType() { return type; }
+    public HorseCondition getCondition() { return condition; }
+    public Integer getMinAge() { return minAge; }
+    public Integer getMaxAge() { return maxAge; }
+    public Double getMinPrice() { return minPrice; }
+    public Double getMaxPrice() { return maxPrice; }
+    public String getText() { return text; }
+
+    /**
+     * HQL condition over the horse alias (without the alias for bulk
+     * statements when null), "1 = 1" when nothing is set.
+     */
+    String where(String alias) {
+        String prefix = alias == null ? "" : alias + ".";
+        StringBuilder where = new StringBuilder("1 = 1");
+        if (stableId != null) {
+            where.append(" AND ").append(prefix).append("stable.id = :stableId");
+        }
+        if (stableName != null) {
+            where.append(" AND ").append(prefix)
+                    .append("stable.id = (SELECT fs.id FROM Stable fs WHERE fs.stableName = :stableName)");
+        }
+        if (breed != null) {
+            where.append(" AND LOWER(").append(prefix).append("breed) = :breed");
+        }
+        if (type != null) {
+            where.append(" AND ").append(prefix).append("type = :type");
+        }
+        if (condition != null) {
+            where.append(" AND ").append(prefix).append("condition = :condition");
+        }
+        if (minAge != null) {
+            where.append(" AND ").append(prefix).append("age >= :minAge");
+        }
+        if (maxAge != null) {
+            where.append(" AND ").append(prefix).append("age <= :maxAge");
+        }
+        if (minPrice != null) {
+            where.append(" AND ").append(prefix).append("price >= :minPrice");
+        }
+        if (maxPrice != null) {
+            where.append(" AND ").append(prefix).append("price <= :maxPrice");
+        }
+        if (text != null) {
+            where.append(" AND (").append(prefix).append("nameLower LIKE :text ESCAPE '!' OR LOWER(")
+                    .append(prefix).append("breed) LIKE :text ESCAPE '!')");
+        }
+        return where.toString();
+    }
+
+    /** Binds the parameters used by {@link #where}. */
+    void bind(Query<?> query) {
+        parameters().forEach(query::setParameter);
+    }
+
+    private Map<String, Object> parameters() {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (stableId != null) parameters.put("stableId", stableId);
+        if (stableName != null) parameters.put("stableName", stableName);
+        if (breed != null) parameters.put("breed", breed.toLowerCase(Locale.ROOT));
+        if (type != null) parameters.put("type", type);
+        if (condition != null) parameters.put("condition", condition);
+        if (minAge != null) parameters.put("minAge", minAge);
+        if (maxAge != null) parameters.put("maxAge", maxAge);
+        if (minPrice != null) parameters.put("minPrice", minPrice);
+        if (maxPrice != null) parameters.put("maxPrice", maxPrice);
+        if (text != null) parameters.put("text", "%" + likeEscape(text.toLowerCase(Locale.ROOT)) + "%");
+        return parameters;
+    }
+
+    private static String likeEscape(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    @Override
+    public String toString() {
+        return "HorseFilter" + parameters();
+    }
+}
@@ -0,0 +1,96 @@
+package dao;
+
+import java.util.Locale;
+
+/**
+ * A {@link HorseFilter} plus ordering and a page size, run by
+ * {@link HorseDAO#find(HorseQuery)} as one SQL query with ORDER BY and LIMIT.
+ *
+ * Pages continue after the horse with id {@code afterId} (keyset paging). For
+ * orders other than by id the cursor horse's sort value is looked up in the
+ * same statement, ties are broken by id, so the cursor stays a plain horse id.
+ */
+public class HorseQuery {
+
+    public enum Sort {
+        ID("id"),
+        NAME("nameLower"),
+        PRICE("price"),
+        AGE("age"),
+        WEIGHT("weightKg");
+
+        private final String property;
+
+        Sort(String property) {
+            this.property = property;
+        }
+
+        /** Sort by name, ignoring case; null or blank means by id. */
+        public static Sort parse(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown sort '" + value + "', expected one of id, name, price, age, weight");
+            }
+        }
+    }
+
+    private final HorseFilter filter;
+    private Sort sort = Sort.ID;
+    private boolean descending;
+    private Integer limit;
+    private Long afterId;
+
+    private HorseQuery(HorseFilter filter) {
+        this.filter = filter;
+    }
+
+    public static HorseQuery where(HorseFilter filter) {
+        return new HorseQuery(filter);
+    }
+
+    public HorseQuery sortBy(Sort sort) { this.sort = sort; return this; }
+    public HorseQuery descending(boolean descending) { this.descending = descending; return this; }
+    /** Maximum number of horses returned, null for all. */
+    public HorseQuery limit(Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.limit = limit;
+        return this;
+    }
+    public HorseQuery after(Long afterId) { this.afterId = afterId; return this; }
+
+    public HorseFilter getFilter() { return filter; }
+    public Sort getSort() { return sort; }
+    public boolean isDescending() { return descending; }
+    public Integer getLimit() { return limit; }
+    public Long getAfterId() { return afterId; }
+
+    /** The HQL select, with the filter's and the cursor's parameters. */
+    String toHql() {
+        String key = "h." + sort.property;
+        String direction = descending ? " DESC" : "";
+        String after = descending ? " < " : " > ";
+        StringBuilder hql = new StringBuilder("FROM Horse h LEFT JOIN FETCH h.stable WHERE ")
+                .append(filter.where("h"));
+        if (afterId != null) {
+            if (sort == Sort.ID) {
+                hql.append(" AND h.id").append(after).append(":afterId");
+            } else {
+                String cursorValue = "(SELECT c." + sort.property + " FROM Horse c WHERE c.id = :afterId)";
+                hql.append(" AND (").append(key).append(after).append(cursorValue)
+                        .append(" OR (").append(key).append(" = ").append(cursorValue)
+                        .append(" AND h.id").append(after).append(":afterId))");
+            }
+        }
+        hql.append(" ORDER BY ").append(key).append(direction);
+        if (sort != Sort.ID) {
+            hql.append(", h.id").append(direction);
+        }
+        return hql.toString();
+    }
+}
@@ -1,15 +1,20 @@
 package dao;
 
+import model.HorseRatingStats;
 import model.Rating;
 import java.util.List;
 import java.util.Map;
 
 public interface RatingDAO {
     void save(Rating rating);
+    void saveAll(List<Rating> ratings);
     void update(Rating rating);
     void delete(Rating rating);
     Rating findById(Long id);
     List<Rating> findAll();
     List<Rating> findByHorseId(Long horseId);
+    HorseRatingStats findStats(Long horseId);
     Map<String, Object> getAverageRatingByHorse();
+    /** Recomputes every horse's stats from the ratings table, returns the number of horses */
+    int rebuildStats();
 }
@@ -1,124 +1,181 @@
 package dao;
 
-import javax.persistence.criteria.*;
-import model.Horse;
+import model.HorseRatingStats;
 import model.Rating;
+import org.hibernate.LockMode;
 import org.hibernate.Session;
-import org.hibernate.Transaction;
 import org.hibernate.query.Query;
-import util.HibernateUtil;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-public class RatingDAOImpl implements RatingDAO {
+public class RatingDAOImpl extends BaseDAO implements RatingDAO {
 
     @Override
     public void save(Rating rating) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        write("saving rating", session -> {
+            // Locked (and seeded) before the insert, so the seed does not count it
+            HorseRatingStats stats = lockStats(session, rating.getHorse().getId());
             session.save(rating);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+            stats.record(rating.getRatingValue(), rating.getRatingDate());
+        });
+    }
+
+    @Override
+    public void saveAll(List<Rating> ratings) {
+        write("saving ratings", session -> {
+            Map<Long, List<Rating>> byHorse = new LinkedHashMap<>();
+            for (Rating rating : ratings) {
+                byHorse.computeIfAbsent(rating.getHorse().getId(), id -> new ArrayList<>()).add(rating);
             }
-            throw new RuntimeException("Error saving rating: " + e.getMessage(), e);
-        }
+            // One locked stats row per horse, however many of its ratings are in
+            // the batch, taken before the inserts as in save
+            for (Map.Entry<Long, List<Rating>> entry : byHorse.entrySet()) {
+                HorseRatingStats stats = lockStats(session, entry.getKey());
+                for (Rating rating : entry.getValue()) {
+                    session.save(rating);
+                    stats.record(rating.getRatingValue(), rating.getRatingDate());
+                }
+            }
+        });
     }
 
     @Override
     public void update(Rating rating) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        write("updating rating", session -> {
+            Long previousHorseId = session.createQuery("SELECT r.horse.id FROM Rating r WHERE r.id = :id", Long.class)
+                    .setParameter("id", rating.getId())
+                    .uniqueResult();
             session.update(rating);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+            session.flush();
+            recomputeStats(session, rating.getHorse().getId());
+            if (previousHorseId != null && !previousHorseId.equals(rating.getHorse().getId())) {
+                recomputeStats(session, previousHorseId);
             }
-            throw new RuntimeException("Error updating rating: " + e.getMessage(), e);
-        }
+        });
     }
 
     @Override
     public void delete(Rating rating) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        write("deleting rating", session -> {
             session.delete(rating);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error deleting rating: " + e.getMessage(), e);
-        }
+            session.flush();
+            // Min and max cannot be taken back incrementally
+            recomputeStats(session, rating.getHorse().getId());
+        });
     }
 
     @Override
     public Rating findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Rating.class, id);
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding rating by id: " + e.getMessage(), e);
-        }
+        return read("finding rating by id", session -> session.get(Rating.class, id));
     }
 
     @Override
     public List<Rating> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("FROM Rating", Rating.class).list();
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding all ratings: " + e.getMessage(), e);
-        }
+        return read("finding all ratings", session -> session.createQuery("FROM Rating", Rating.class).list());
     }
 
     @Override
     public List<Rating> findByHorseId(Long horseId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        return read("finding ratings by horse id", session -> {
             Query<Rating> query = session.createQuery("FROM Rating r WHERE r.horse.id = :horseId", Rating.class);
             query.setParameter("horseId", horseId);
             return query.list();
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding ratings by horse id: " + e.getMessage(), e);
-        }
+        });
+    }
+
+    @Override
+    public HorseRatingStats findStats(Long horseId) {
+        return read("finding rating stats", session -> session.get(HorseRatingStats.class, horseId));
     }
 
     @Override
     public Map<String, Object> getAverageRatingByHorse() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            CriteriaQuery<Object[]> criteriaQuery = criteriaBuilder.createQuery(Object[].class);
-            Root<Rating> root = criteriaQuery.from(Rating.class);
-            Join<Rating, Horse> horseJoin = root.join("horse");
-
-            criteriaQuery.multiselect(
-                    horseJoin.get("name"),
-                    criteriaBuilder.avg(root.get("ratingValue")),
-                    criteriaBuilder.count(root)
-            );
-            criteriaQuery.groupBy(horseJoin.get("name"));
-
-            List<Object[]> results = session.createQuery(criteriaQuery).getResultList();
-            
+        return read("getting average rating by horse", session -> {
+            List<Object[]> results = session.createQuery(
+                    "SELECT h.name, s.ratingSum, s.ratingCount FROM HorseRatingStats s, Horse h "
+                            + "WHERE h.id = s.horseId AND s.ratingCount > 0", Object[].class).list();
+
             Map<String, Object> resultMap = new HashMap<>();
             for (Object[] result : results) {
                 String horseName = (String) result[0];
-                Double avgRating = (Double) result[1];
-                Long count = (Long) result[2];
+                long sum = (Long) result[1];
+                long count = (Long) result[2];
                 Map<String, Object> stats = new HashMap<>();
-                stats.put("average", avgRating);
+                stats.put("average", (double) sum / count);
                 stats.put("count", count);
                 resultMap.put(horseName, stats);
             }
             
             return resultMap;
-        } catch (Exception e) {
-            throw new RuntimeException("Error getting average rating by horse: " + e.getMessage(), e);
+        });
+    }
+
+    @Override
+    public int rebuildStats() {
+        int[] rows = new int[1];
+        write("rebuilding rating stats", session -> {
+            session.createQuery("DELETE FROM HorseRatingStats").executeUpdate();
+            rows[0] = session.createQuery(
+                    "INSERT INTO HorseRatingStats (horseId, ratingCount, ratingSum, minRating, maxRating, lastRatingDate) "
+                            + "SELECT r.horse.id, COUNT(r), SUM(r.ratingValue), MIN(r.ratingValue), MAX(r.ratingValue), MAX(r.ratingDate) "
+                            + "FROM Rating r GROUP BY r.horse.id").executeUpdate();
+        });
+        return rows[0];
+    }
+
+    /**
+     * Stats row for the horse, locked for update. A missing row is first seeded
+     * from the horse's stored ratings, which backfills horses rated before the
+     * stats table existed.
+     */
+    private HorseRatingStats lockStats(Session session, Long horseId) {
+        HorseRatingStats stats = session.get(HorseRatingStats.class, horseId, LockMode.PESSIMISTIC_WRITE);
+        if (stats == null) {
+            seedStats(session, horseId);
+            stats = session.get(HorseRatingStats.class, horseId, LockMode.PESSIMISTIC_WRITE);
+        }
+        return stats;
+    }
+
+    /**
+     * Inserts the horse's stats row unless it exists, in the caller's
+     * transaction. The horse row is locked first: a concurrent first rating
+     * waits there until this transaction ends, then finds the row and inserts
+     * nothing.
+     */
+    private void seedStats(Session session, Long horseId) {
+        session.createQuery("SELECT h.id FROM Horse h WHERE h.id = :horseId", Long.class)
+                .setParameter("horseId", horseId)
+                .setLockMode("h", LockMode.PESSIMISTIC_WRITE)
+                .uniqueResult();
+        session.createQuery(
+                        "INSERT INTO HorseRatingStats (horseId, ratingCount, ratingSum, minRating, maxRating, lastRatingDate) "
+                                + "SELECT h.id, "
+                                + "(SELECT COUNT(r) FROM Rating r WHERE r.horse = h), "
+                                + "(SELECT COALESCE(SUM(r.ratingValue), 0) FROM Rating r WHERE r.horse = h), "
+                                + "(SELECT COALESCE(MIN(r.ratingValue), 0) FROM Rating r WHERE r.horse = h), "
+                                + "(SELECT COALESCE(MAX(r.ratingValue), 0) FROM Rating r WHERE r.horse = h), "
+                                + "(SELECT MAX(r.ratingDate) FROM Rating r WHERE r.horse = h) "
+                                + "FROM Horse h WHERE h.id = :horseId "
+                                + "AND NOT EXISTS (SELECT s.horseId FROM HorseRatingStats s WHERE s.horseId = h.id)")
+                .setParameter("horseId", horseId)
+                .executeUpdate();
+    }
+
+    private void recomputeStats(Session session, Long horseId) {
+        HorseRatingStats stats = lockStats(session, horseId);
+        stats.reset();
+        List<Rating> ratings = session.createQuery("FROM Rating r WHERE r.horse.id = :horseId", Rating.class)
+                .setParameter("horseId", horseId)
+                .list();
+        // A horse left without ratings keeps a zeroed row, so a later rating
+        // finds it to lock
+        for (Rating rating : ratings) {
+            stats.record(rating.getRatingValue(), rating.getRatingDate());
         }
     }
 }
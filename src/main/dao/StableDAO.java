@@ -1,13 +1,27 @@
 package dao;
 
 import model.Stable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface StableDAO {
     void save(Stable stable);
+    /** Inserts the stables and, through the cascade, their horses in one transaction */
+    void saveAll(List<Stable> stables);
     void update(Stable stable);
     void delete(Stable stable);
     Stable findById(Long id);
+    /** The stable with its horse list left unloaded, for callers that only need its fields and load */
+    Stable findByIdWithoutHorses(Long id);
     Stable findByName(String name);
+    /** Existence checks that load neither the stable nor its horses */
+    boolean existsById(Long id);
+    boolean existsByName(String name);
     List<Stable> findAll();
+    List<Stable> findAllWithHorses();
+    List<Stable> findEmpty();
+    List<Stable> findPage(Long afterId, int limit);
+    /** Which of the given names are already taken, in a few IN queries rather than one per name */
+    Set<String> findExistingNames(Collection<String> names);
 }
@@ -2,85 +2,142 @@ package dao;
 
 import model.Stable;
 import org.hibernate.Session;
-import org.hibernate.Transaction;
 import org.hibernate.query.Query;
-import util.HibernateUtil;
+import util.SecondLevelCache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-public class StableDAOImpl implements StableDAO {
+public class StableDAOImpl extends BaseDAO implements StableDAO {
+    // Keeps IN lists well below database parameter limits
+    private static final int IN_CHUNK_SIZE = 1000;
 
     @Override
     public void save(Stable stable) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.save(stable);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        write("saving stable", session -> session.save(stable));
+    }
+
+    @Override
+    public void saveAll(List<Stable> stables) {
+        write("saving stables", session -> {
+            for (Stable stable : stables) {
+                session.save(stable);
             }
-            throw new RuntimeException("Error saving stable: " + e.getMessage(), e);
-        }
+        });
     }
 
     @Override
     public void update(Stable stable) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.update(stable);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error updating stable: " + e.getMessage(), e);
-        }
+        write("updating stable", session -> session.update(stable));
+        SecondLevelCache.evictStable(stable.getId());
     }
 
     @Override
     public void delete(Stable stable) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.delete(stable);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error deleting stable: " + e.getMessage(), e);
-        }
+        write("deleting stable", session -> session.delete(stable));
+        SecondLevelCache.evictStable(stable.getId());
     }
 
+    // Single-stable lookups are the ones callers mutate or list horses from, so
+    // the lazy horse list is loaded before the session closes. Stable, its horse
+    // list and the horses are all in the second-level cache, so a warm lookup
+    // issues no SQL at all.
     @Override
     public Stable findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.get(Stable.class, id);
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding stable by id: " + e.getMessage(), e);
-        }
+        return read("finding stable by id", session -> withHorses(session.get(Stable.class, id)));
+    }
+
+    // getCurrentLoad() then falls back to the selected horse count
+    @Override
+    public Stable findByIdWithoutHorses(Long id) {
+        return read("finding stable by id", session -> session.get(Stable.class, id));
     }
 
     @Override
     public Stable findByName(String name) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Query<Stable> query = session.createQuery("FROM Stable WHERE stableName = :name", Stable.class);
-            query.setParameter("name", name);
-            return query.uniqueResult();
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding stable by name: " + e.getMessage(), e);
+        return read("finding stable by name", session -> {
+            // Only the name -> id mapping goes through the query cache, the entity
+            // itself is then resolved from the entity cache
+            Long id = findIdByName(session, name);
+            return id != null ? withHorses(session.get(Stable.class, id)) : null;
+        });
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return read("checking stable by id", session -> session.createQuery(
+                        "SELECT COUNT(s) FROM Stable s WHERE s.id = :id", Long.class)
+                .setParameter("id", id)
+                .uniqueResult() > 0);
+    }
+
+    @Override
+    public boolean existsByName(String name) {
+        return read("checking stable by name", session -> findIdByName(session, name) != null);
+    }
+
+    private Long findIdByName(Session session, String name) {
+        Query<Long> query = session.createQuery("SELECT s.id FROM Stable s WHERE s.stableName = :name", Long.class);
+        query.setParameter("name", name);
+        query.setCacheable(true);
+        query.setCacheRegion(SecondLevelCache.STABLE_BY_NAME_REGION);
+        return query.uniqueResult();
+    }
+
+    private Stable withHorses(Stable stable) {
+        if (stable != null) {
+            stable.getHorseList().size(); // initializes the lazy list while the session is open
         }
+        return stable;
     }
 
     @Override
     public List<Stable> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("FROM Stable", Stable.class).list();
-        } catch (Exception e) {
-            throw new RuntimeException("Error finding all stables: " + e.getMessage(), e);
-        }
+        return read("finding all stables", session -> session.createQuery("FROM Stable", Stable.class).list());
+    }
+
+    @Override
+    public List<Stable> findAllWithHorses() {
+        return read("finding all stables with horses", session ->
+                session.createQuery("SELECT DISTINCT s FROM Stable s LEFT JOIN FETCH s.horseList", Stable.class).list());
+    }
+
+    @Override
+    public List<Stable> findEmpty() {
+        return read("finding empty stables", session ->
+                session.createQuery("FROM Stable s WHERE s.horseList IS EMPTY", Stable.class).list());
+    }
+
+    /**
+     * Keyset page ordered by id: returns up to {@code limit} stables with an id
+     * greater than {@code afterId} (or from the start when null).
+     */
+    @Override
+    public List<Stable> findPage(Long afterId, int limit) {
+        return read("finding stable page", session -> {
+            Query<Stable> query = session.createQuery(
+                    "FROM Stable s WHERE s.id > :afterId ORDER BY s.id", Stable.class);
+            query.setParameter("afterId", afterId != null ? afterId : 0L);
+            query.setMaxResults(limit);
+            return query.list();
+        });
+    }
+
+    @Override
+    public Set<String> findExistingNames(Collection<String> names) {
+        return read("finding existing stable names", session -> {
+            Set<String> existing = new HashSet<>();
+            List<String> all = new ArrayList<>(names);
+            for (int from = 0; from < all.size(); from += IN_CHUNK_SIZE) {
+                existing.addAll(session.createQuery(
+                                "SELECT s.stableName FROM Stable s WHERE s.stableName IN (:names)", String.class)
+                        .setParameterList("names", all.subList(from, Math.min(all.size(), from + IN_CHUNK_SIZE)))
+                        .list());
+            }
+            return existing;
+        });
     }
 }
@@ -0,0 +1,116 @@
+package dao;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import util.HibernateUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Session-per-operation context bound to the current thread. While a unit of
+ * work is open, every DAO call joins its session and transaction instead of
+ * opening its own, so entities stay managed between calls and one business
+ * operation costs one session, one transaction and a single flush at commit.
+ *
+ * <pre>
+ * try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+ *     Stable stable = stableDAO.findByName(name);
+ *     stable.changeCondition(horse, condition);
+ *     unitOfWork.commit();
+ * }
+ * </pre>
+ *
+ * Closing without {@link #commit()} rolls the transaction back. Beginning a
+ * unit of work while another one is open joins the outer one; only the
+ * outermost commit ends the transaction.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Session session;
+    private final Transaction transaction;
+    private final boolean owner;
+    // Shared with joined units, run when the owner closes
+    private final List<Runnable> completions;
+    private boolean committed;
+
+    private UnitOfWork(Session session, Transaction transaction, boolean owner, List<Runnable> completions) {
+        this.session = session;
+        this.transaction = transaction;
+        this.owner = owner;
+        this.completions = completions;
+    }
+
+    public static UnitOfWork begin() {
+        UnitOfWork outer = CURRENT.get();
+        if (outer != null) {
+            return new UnitOfWork(outer.session, outer.transaction, false, outer.completions);
+        }
+        Session session = HibernateUtil.getSessionFactory().openSession();
+        try {
+            UnitOfWork unitOfWork = new UnitOfWork(session, session.beginTransaction(), true, new ArrayList<>());
+            CURRENT.set(unitOfWork);
+            return unitOfWork;
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The unit of work open on this thread, or null when DAOs should manage
+     * their own session.
+     */
+    static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Runs the action once the outermost unit of work has ended, after its
+     * commit or rollback.
+     */
+    public void afterCompletion(Runnable action) {
+        completions.add(action);
+    }
+
+    /**
+     * Commits the transaction when this is the outermost unit. If a joined unit
+     * closed without committing, the transaction is rolled back instead and
+     * an IllegalStateException is thrown.
+     */
+    public void commit() {
+        if (owner) {
+            if (transaction.getRollbackOnly()) {
+                transaction.rollback();
+                throw new IllegalStateException("Unit of work rolled back: a nested unit of work did not commit");
+            }
+            transaction.commit();
+        }
+        committed = true;
+    }
+
+    @Override
+    public void close() {
+        if (!owner) {
+            // A failed inner unit must not let the outer one commit its half
+            if (!committed && transaction.isActive()) {
+                transaction.markRollbackOnly();
+            }
+            return;
+        }
+        try {
+            if (!committed && transaction.isActive()) {
+                transaction.rollback();
+            }
+        } finally {
+            CURRENT.remove();
+            session.close();
+            completions.forEach(Runnable::run);
+        }
+    }
+}
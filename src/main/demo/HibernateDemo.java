@@ -56,7 +56,7 @@ public class HibernateDemo {
             System.out.println("   Found " + allStables.size() + " stables:");
             for (Stable s : allStables) {
                 System.out.println("   - " + s.getStableName() + " (" + 
-                                 s.getHorseList().size() + "/" + s.getMaxCapacity() + ")");
+                                 s.getCurrentLoad() + "/" + s.getMaxCapacity() + ")");
             }
             
             // 4. Demonstrate Rating Entity
@@ -116,6 +116,7 @@ public class HibernateDemo {
         org.hibernate.Transaction tx = session.beginTransaction();
         try {
             session.createQuery("DELETE FROM Rating").executeUpdate();
+            session.createQuery("DELETE FROM HorseRatingStats").executeUpdate();
             session.createQuery("DELETE FROM Horse").executeUpdate();
             session.createQuery("DELETE FROM Stable").executeUpdate();
             tx.commit();
@@ -0,0 +1,10 @@
+package exceptions;
+
+/**
+ * Exception thrown when the asynchronous ingestion queue cannot accept more work
+ */
+public class IngestionQueueFullException extends StableException {
+    public IngestionQueueFullException(int capacity) {
+        super(String.format("Rating queue is full (%d pending), try again later", capacity));
+    }
+}
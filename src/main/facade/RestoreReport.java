@@ -0,0 +1,64 @@
+package facade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link StableFacade#restoreStables}: what was inserted, which
+ * stables were skipped because the name is taken, and the batches that failed.
+ */
+public class RestoreReport {
+    private int stablesRestored;
+    private int horsesRestored;
+    private final List<String> conflicts = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+
+    void restored(int stables, int horses) {
+        stablesRestored += stables;
+        horsesRestored += horses;
+    }
+    void conflict(String stableName) { conflicts.add(stableName); }
+    void batchFailed(String firstStable, String lastStable, String reason) {
+        failures.add(String.format("Stables '%s'..'%s' rolled back: %s", firstStable, lastStable, reason));
+    }
+
+    public int getStablesRestored() { return stablesRestored; }
+    public int getHorsesRestored() { return horsesRestored; }
+    public List<String> getConflicts() { return Collections.unmodifiableList(conflicts); }
+    public List<String> getFailures() { return Collections.unmodifiableList(failures); }
+
+    public boolean hasProblems() { return !conflicts.isEmpty() || !failures.isEmpty(); }
+
+    /**
+     * The first {@code limit} conflicts and failures, one per line, followed by
+     * how many more there were. Restoring the same snapshot twice conflicts on
+     * every stable.
+     */
+    public String problemSummary(int limit) {
+        List<String> problems = new ArrayList<>(Math.min(limit, conflicts.size() + failures.size()));
+        for (String name : conflicts) {
+            if (problems.size() == limit) break;
+            problems.add(name + ": already exists");
+        }
+        for (String failure : failures) {
+            if (problems.size() == limit) break;
+            problems.add(failure);
+        }
+        StringBuilder summary = new StringBuilder();
+        for (String problem : problems) {
+            summary.append("- ").append(problem).append('\n');
+        }
+        int more = conflicts.size() + failures.size() - problems.size();
+        if (more > 0) {
+            summary.append("... and ").append(more).append(" more\n");
+        }
+        return summary.toString().stripTrailing();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Restored %d stables with %d horses, %d already existed, %d batches failed",
+                stablesRestored, horsesRestored, conflicts.size(), failures.size());
+    }
+}
@@ -2,23 +2,43 @@ package facade;
 
 import dao.HorseDAO;
 import dao.HorseDAOImpl;
+import dao.HorseFilter;
+import dao.HorseQuery;
 import dao.StableDAO;
 import dao.StableDAOImpl;
+import dao.UnitOfWork;
 import exceptions.*;
 import model.*;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
-import util.HibernateUtil;
+import org.hibernate.StaleStateException;
+import service.CapacityAdmission;
+import util.SecondLevelCache;
+import util.StripedLocks;
 
+import javax.persistence.OptimisticLockException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 
 /**
  * Facade pattern to separate UI layer from business logic
  */
 public class StableFacade {
+    /** Stables written per transaction by {@link #restoreStables} */
+    public static final int RESTORE_BATCH_SIZE = 100;
+    /** Attempts of a stable change that keeps hitting version conflicts */
+    static final int MAX_ATTEMPTS = 3;
+    // Shared by all facades, they may be used from several threads at once
+    private static final StripedLocks STABLE_LOCKS = new StripedLocks(64);
+
     private final StableManager stableManager;
     private final StableDAO stableDAO;
     private final HorseDAO horseDAO;
+    private final CapacityAdmission admission = CapacityAdmission.getInstance();
 
     public StableFacade() {
         this.stableManager = new StableManager();
@@ -39,6 +59,10 @@ public class StableFacade {
         return stableManager.getAllStables();
     }
 
+    public List<Stable> getAllStablesWithHorses() {
+        return stableManager.getAllStablesWithHorses();
+    }
+
     public List<Stable> sortStablesByLoad() {
         return stableManager.sortStablesByLoad();
     }
@@ -51,66 +75,72 @@ public class StableFacade {
         return stableManager.getStable(name);
     }
 
+    /**
+     * Inserts deserialized stables together with their horses. Names already in
+     * the database (or repeated in the list) are looked up in one go and skipped;
+     * the rest is written {@link #RESTORE_BATCH_SIZE} stables per transaction. A
+     * failing batch is rolled back and reported without stopping the restore.
+     *
+     * @param progress called after every batch with (stables processed, total), may be null
+     */
+    public RestoreReport restoreStables(List<Stable> stables, BiConsumer<Integer, Integer> progress) {
+        RestoreReport report = new RestoreReport();
+        Map<String, Stable> byName = new LinkedHashMap<>();
+        for (Stable stable : stables) {
+            if (byName.putIfAbsent(stable.getStableName(), stable) != null) {
+                report.conflict(stable.getStableName());
+            }
+        }
+        Set<String> existing = stableDAO.findExistingNames(byName.keySet());
+        List<Stable> toInsert = new ArrayList<>(byName.size());
+        for (Stable stable : byName.values()) {
+            if (existing.contains(stable.getStableName())) {
+                report.conflict(stable.getStableName());
+            } else {
+                toInsert.add(stable);
+            }
+        }
+
+        int total = stables.size();
+        int processed = total - toInsert.size();
+        for (int from = 0; from < toInsert.size(); from += RESTORE_BATCH_SIZE) {
+            List<Stable> batch = toInsert.subList(from, Math.min(toInsert.size(), from + RESTORE_BATCH_SIZE));
+            try {
+                stableDAO.saveAll(batch);
+                report.restored(batch.size(), batch.stream().mapToInt(s -> s.getHorseList().size()).sum());
+            } catch (RuntimeException e) {
+                report.batchFailed(batch.get(0).getStableName(), batch.get(batch.size() - 1).getStableName(), e.getMessage());
+            }
+            processed += batch.size();
+            if (progress != null) {
+                progress.accept(processed, total);
+            }
+        }
+        return report;
+    }
+
     // Horse operations
     public void addHorseToStable(String stableName, String horseName, String breed, 
                                   HorseType type, HorseCondition condition, 
                                   int age, double price, double weight) throws StableException {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            
-            Stable stable = stableDAO.findByName(stableName);
-            if (stable == null) {
-                throw new StableNotFoundException(stableName);
-            }
-            
+        mutateStable(stableName, "adding horse", (stable, unitOfWork) -> {
             Horse horse = new Horse(horseName, breed, type, condition, age, price, weight);
+            // Holds the place until the transaction has ended, see CapacityAdmission
+            CapacityAdmission.Ticket ticket = admission.admit(stable, () -> horseDAO.countByStableId(stable.getId()));
+            unitOfWork.afterCompletion(ticket::close);
+            evictAfterCompletion(stable, unitOfWork);
             stable.addHorse(horse);
-            
-            session.update(stable);
-            transaction.commit();
-        } catch (StableException e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error adding horse: " + e.getMessage(), e);
-        }
+            horseDAO.save(horse);
+        });
     }
 
     public void removeHorseFromStable(String stableName, String horseName) throws StableException {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            
-            Stable stable = stableDAO.findByName(stableName);
-            if (stable == null) {
-                throw new StableNotFoundException(stableName);
-            }
-            
-            Horse horse = stable.search(horseName);
-            if (horse == null) {
-                throw new HorseNotFoundException(horseName);
-            }
-            
-            stable.removeHorse(horse);
-            session.update(stable);
-            transaction.commit();
-        } catch (StableException e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error removing horse: " + e.getMessage(), e);
-        }
+        mutateStable(stableName, "removing horse", (stable, unitOfWork) -> {
+            // Orphan removal deletes the horse when the unit of work flushes,
+            // no DAO call evicts the stable's cached occupancy
+            evictAfterCompletion(stable, unitOfWork);
+            stable.removeHorse(requireHorse(stable, horseName));
+        });
     }
 
     public List<Horse> getHorsesInStable(String stableName) throws StableException {
@@ -118,87 +148,138 @@ public class StableFacade {
         return stable.getHorseList();
     }
 
+    // Listings below are single queries, sorted and filtered by the database
+
     public List<Horse> searchHorsesByName(String stableName, String fragment) throws StableException {
-        Stable stable = stableManager.getStable(stableName);
-        return stable.searchPartial(fragment);
+        return findHorsesInStable(stableName, HorseQuery.where(HorseFilter.all().stableName(stableName).text(fragment)));
     }
 
     public List<Horse> filterHorsesByCondition(String stableName, HorseCondition condition) throws StableException {
-        Stable stable = stableManager.getStable(stableName);
-        return stable.getHorseList().stream()
-                .filter(h -> h.getCondition() == condition)
-                .toList();
+        return findHorsesInStable(stableName,
+                HorseQuery.where(HorseFilter.all().stableName(stableName).condition(condition)));
     }
 
     public List<Horse> sortHorsesByName(String stableName) throws StableException {
-        Stable stable = stableManager.getStable(stableName);
-        return stable.sortByName();
+        return findHorsesInStable(stableName,
+                HorseQuery.where(HorseFilter.all().stableName(stableName)).sortBy(HorseQuery.Sort.NAME));
     }
 
     public List<Horse> sortHorsesByPrice(String stableName) throws StableException {
-        Stable stable = stableManager.getStable(stableName);
-        return stable.sortByPrice();
+        return findHorsesInStable(stableName,
+                HorseQuery.where(HorseFilter.all().stableName(stableName)).sortBy(HorseQuery.Sort.PRICE));
     }
 
+    /**
+     * Horses matching the query across all stables, in the query's order.
+     */
+    public List<Horse> findHorses(HorseQuery query) {
+        return horseDAO.find(query);
+    }
+
+    // An empty result may mean the stable does not exist, which the old in-memory
+    // versions of these methods reported
+    private List<Horse> findHorsesInStable(String stableName, HorseQuery query) throws StableException {
+        List<Horse> horses = horseDAO.find(query);
+        if (horses.isEmpty()) {
+            stableManager.getStable(stableName);
+        }
+        return horses;
+    }
+
+    // One UPDATE of one row, the stable and its horses are not loaded
     public void changeHorseCondition(String stableName, String horseName, HorseCondition condition) throws StableException {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            
-            Stable stable = stableDAO.findByName(stableName);
-            if (stable == null) {
-                throw new StableNotFoundException(stableName);
-            }
-            
-            Horse horse = stable.search(horseName);
-            if (horse == null) {
-                throw new HorseNotFoundException(horseName);
-            }
-            
-            stable.changeCondition(horse, condition);
-            session.update(stable);
-            transaction.commit();
-        } catch (StableException e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error changing horse condition: " + e.getMessage(), e);
+        if (horseDAO.updateConditionInStable(stableName, horseName, condition) == 0) {
+            throw notFound(stableName, horseName);
         }
     }
 
     public void changeHorseWeight(String stableName, String horseName, double weight) throws StableException {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            
-            Stable stable = stableDAO.findByName(stableName);
-            if (stable == null) {
-                throw new StableNotFoundException(stableName);
-            }
-            
-            Horse horse = stable.search(horseName);
-            if (horse == null) {
-                throw new HorseNotFoundException(horseName);
-            }
-            
-            stable.changeWeight(horse, weight);
-            session.update(stable);
-            transaction.commit();
-        } catch (StableException e) {
-            if (transaction != null) {
-                transaction.rollback();
+        if (horseDAO.updateWeightInStable(stableName, horseName, weight) == 0) {
+            throw notFound(stableName, horseName);
+        }
+    }
+
+    /**
+     * Sets the condition of every matching horse, for example to quarantine a
+     * whole stable or breed, with one bulk UPDATE. Returns the number of horses
+     * changed.
+     */
+    public int changeHorseConditions(HorseFilter filter, HorseCondition condition) throws StableException {
+        int changed = horseDAO.updateConditionWhere(filter, condition);
+        if (changed == 0 && filter.getStableName() != null && !stableDAO.existsByName(filter.getStableName())) {
+            throw new StableNotFoundException(filter.getStableName());
+        }
+        return changed;
+    }
+
+    private StableException notFound(String stableName, String horseName) {
+        return !stableDAO.existsByName(stableName)
+                ? new StableNotFoundException(stableName)
+                : new HorseNotFoundException(horseName);
+    }
+
+    /**
+     * Runs a change to one stable in its own unit of work. Changes to the same
+     * stable are serialized by a striped lock on its name; changes to other
+     * stables run in parallel. A commit that still fails on a version conflict,
+     * because the data was changed outside this facade, is retried on fresh
+     * data up to {@link #MAX_ATTEMPTS} times. Package-private so tests can
+     * force such a conflict.
+     */
+    void mutateStable(String stableName, String action, StableMutation mutation) throws StableException {
+        ReentrantLock lock = STABLE_LOCKS.get(stableName);
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                Stable stable = null;
+                try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+                    stable = stableDAO.findByName(stableName);
+                    if (stable == null) {
+                        throw new StableNotFoundException(stableName);
+                    }
+                    mutation.apply(stable, unitOfWork);
+                    unitOfWork.commit();
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt < MAX_ATTEMPTS && isVersionConflict(e)) {
+                        if (stable != null) {
+                            SecondLevelCache.evictStableAndHorses(stable);
+                        }
+                        continue;
+                    }
+                    throw new RuntimeException("Error " + action + ": " + e.getMessage(), e);
+                }
             }
-            throw e;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The cached Stable carries its occupancy count; dropped once the change is committed
+    private static void evictAfterCompletion(Stable stable, UnitOfWork unitOfWork) {
+        Long stableId = stable.getId();
+        unitOfWork.afterCompletion(() -> SecondLevelCache.evictStable(stableId));
+    }
+
+    private static Horse requireHorse(Stable stable, String horseName) throws HorseNotFoundException {
+        Horse horse = stable.search(horseName);
+        if (horse == null) {
+            throw new HorseNotFoundException(horseName);
+        }
+        return horse;
+    }
+
+    private static boolean isVersionConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleStateException) {
+                return true;
             }
-            throw new RuntimeException("Error changing horse weight: " + e.getMessage(), e);
         }
+        return false;
+    }
+
+    @FunctionalInterface
+    interface StableMutation {
+        void apply(Stable stable, UnitOfWork unitOfWork) throws StableException;
     }
 }
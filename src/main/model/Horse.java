@@ -1,6 +1,8 @@
 package model;
 
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.CascadeType;
 import java.io.Serializable;
@@ -8,7 +10,16 @@ import java.util.Comparator;
 import java.util.Objects;
 
 @Entity
-@Table(name = "horses")
+@Table(name = "horses", indexes = {
+    @Index(name = "idx_horses_name", columnList = "name"),
+    @Index(name = "idx_horses_name_lower", columnList = "name_lower"),
+    // Also serves the stable_id foreign key and findByStableId
+    @Index(name = "idx_horses_stable_condition", columnList = "stable_id, condition"),
+    // Sorted listings (HorseQuery) read the cheapest horses without sorting the table
+    @Index(name = "idx_horses_price", columnList = "price")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Horse implements Comparable<Horse>, Serializable {
   private static final long serialVersionUID = 1L;
 
@@ -19,6 +30,12 @@ public class Horse implements Comparable<Horse>, Serializable {
   @Column(nullable = false)
   private String name;
 
+  // Lower-cased copy of name kept by the database, so case-insensitive lookups
+  // can use an index instead of scanning LOWER(name). Only read in queries.
+  @Column(name = "name_lower", insertable = false, updatable = false,
+          columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (LOWER(name))")
+  private String nameLower;
+
   @Column(nullable = false)
   private String breed;
 
@@ -39,6 +56,12 @@ public class Horse implements Comparable<Horse>, Serializable {
   @Column(nullable = false)
   private double weightKg;
 
+  // Optimistic lock: a concurrent edit of the same horse fails at commit
+  // instead of silently overwriting this one. The default fills existing rows.
+  @Version
+  @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+  private long version;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "stable_id")
   @Cascade(CascadeType.SAVE_UPDATE)
@@ -59,6 +82,7 @@ public class Horse implements Comparable<Horse>, Serializable {
   }
 
   public Long getId() { return id; }
+  public long getVersion() { return version; }
   public void setId(Long id) { this.id = id; }
   
   public Stable getStable() { return stable; }
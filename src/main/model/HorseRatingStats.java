@@ -0,0 +1,102 @@
+package model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Running rating aggregate for one horse, updated in the same transaction as
+ * every rating insert so averages never have to be recomputed from the
+ * ratings table.
+ */
+@Entity
+@Table(name = "horse_rating_stats")
+public class HorseRatingStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private Long horseId;
+
+    @Column(nullable = false)
+    private long ratingCount;
+
+    @Column(nullable = false)
+    private long ratingSum;
+
+    @Column(nullable = false)
+    private int minRating;
+
+    @Column(nullable = false)
+    private int maxRating;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastRatingDate;
+
+    public HorseRatingStats() {
+        // Default constructor for JPA
+    }
+
+    public HorseRatingStats(Long horseId) {
+        this.horseId = horseId;
+    }
+
+    /**
+     * Adds one rating to the aggregate.
+     */
+    public void record(int ratingValue, Date ratingDate) {
+        if (ratingCount == 0) {
+            minRating = ratingValue;
+            maxRating = ratingValue;
+        } else {
+            minRating = Math.min(minRating, ratingValue);
+            maxRating = Math.max(maxRating, ratingValue);
+        }
+        ratingCount++;
+        ratingSum += ratingValue;
+        if (lastRatingDate == null || ratingDate.after(lastRatingDate)) {
+            lastRatingDate = ratingDate;
+        }
+    }
+
+    public void reset() {
+        ratingCount = 0;
+        ratingSum = 0;
+        minRating = 0;
+        maxRating = 0;
+        lastRatingDate = null;
+    }
+
+    public Long getHorseId() {
+        return horseId;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getMinRating() {
+        return minRating;
+    }
+
+    public int getMaxRating() {
+        return maxRating;
+    }
+
+    public Date getLastRatingDate() {
+        return lastRatingDate;
+    }
+
+    public double getAverage() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HorseRatingStats{horseId=%d, count=%d, average=%.2f, min=%d, max=%d}",
+                horseId, ratingCount, getAverage(), minRating, maxRating);
+    }
+}
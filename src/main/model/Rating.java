@@ -6,7 +6,7 @@ import java.util.Date;
 import java.util.Objects;
 
 @Entity
-@Table(name = "ratings")
+@Table(name = "ratings", indexes = @Index(name = "idx_ratings_horse", columnList = "horse_id"))
 public class Rating implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -2,14 +2,21 @@ package model;
 
 import exceptions.*;
 import javax.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.CascadeType;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.OptimisticLock;
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "stables")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Stable implements Serializable {
   private static final long serialVersionUID = 1L;
 
@@ -20,13 +27,38 @@ public class Stable implements Serializable {
   @Column(nullable = false, unique = true)
   private String stableName;
 
-  @OneToMany(mappedBy = "stable", fetch = FetchType.EAGER, orphanRemoval = true)
+  // Horses carry their own version, adding or removing one must not make
+  // every concurrent edit of the stable conflict
+  @OneToMany(mappedBy = "stable", fetch = FetchType.LAZY, orphanRemoval = true)
   @Cascade({CascadeType.ALL})
+  @OptimisticLock(excluded = true)
+  @OrderBy("id")
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   private List<Horse> horseList;
 
   @Column(nullable = false)
   private int maxCapacity;
 
+  @Version
+  @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+  private long version;
+
+  // Occupancy computed by the database when the stable is loaded, so listings
+  // do not have to fetch the horses just to count them
+  @Formula("(SELECT COUNT(*) FROM horses h WHERE h.stable_id = id)")
+  private int currentLoad;
+
+  // Lookup index over horseList, built on first use: case-folded name to the
+  // horses with that name (Horse.equals compares name, breed and age, so the
+  // bucket holds every candidate), plus the exact instances for a fast path.
+  // Rebuilt whenever Hibernate swaps or reloads the underlying list.
+  @Transient
+  private transient Map<String, List<Horse>> horsesByName;
+  @Transient
+  private transient Set<Horse> members;
+  @Transient
+  private transient List<Horse> indexedList;
+
   public Stable() {
     // Default constructor for JPA
     this.horseList = new ArrayList<>();
@@ -45,51 +77,60 @@ public class Stable implements Serializable {
   protected void setStableName(String stableName) { this.stableName = stableName; }
   
   public int getMaxCapacity() { return maxCapacity; }
+  public long getVersion() { return version; }
   protected void setMaxCapacity(int maxCapacity) { this.maxCapacity = maxCapacity; }
   public List<Horse> getHorseList() { return Collections.unmodifiableList(horseList); }
 
+  /**
+   * Number of horses in the stable. Uses the loaded horse list when it is
+   * available, otherwise the count selected together with the stable.
+   */
+  public int getCurrentLoad() {
+    return Hibernate.isInitialized(horseList) ? horseList.size() : currentLoad;
+  }
+
   public void addHorse(Horse horse) throws DuplicateHorseException, StableCapacityException {
-    if (horseList.contains(horse)) {
+    if (find(horse) != null) {
       throw new DuplicateHorseException(horse.getName(), stableName);
     }
     if (horseList.size() >= maxCapacity) {
       throw new StableCapacityException(stableName, maxCapacity);
     }
     horseList.add(horse);
+    indexAdd(horse);
     horse.setStable(this);
   }
 
-  public void removeHorse(Horse horse) throws HorseNotFoundException {
-    if (!horseList.remove(horse)) {
-      throw new HorseNotFoundException(horse.getName());
+  /**
+   * Puts back horses the stable held when it was saved, skipping the
+   * duplicate and capacity checks of addHorse.
+   */
+  public void restoreHorses(List<Horse> horses) {
+    for (Horse horse : horses) {
+      horseList.add(horse);
+      horse.setStable(this);
     }
+  }
+
+  public void removeHorse(Horse horse) throws HorseNotFoundException {
+    Horse member = require(horse);
+    unlink(member);
     horse.setStable(null);
   }
 
   public void sickHorse(Horse horse) throws HorseNotFoundException {
-    int idx = horseList.indexOf(horse);
-    if (idx == -1) {
-      throw new HorseNotFoundException(horse.getName());
-    }
-    horseList.get(idx).setCondition(HorseCondition.SICK);
-    horseList.remove(idx);
+    Horse member = require(horse);
+    member.setCondition(HorseCondition.SICK);
+    unlink(member);
     horse.setStable(null);
   }
 
   public void changeCondition(Horse horse, HorseCondition condition) throws HorseNotFoundException {
-    int idx = horseList.indexOf(horse);
-    if (idx == -1) {
-      throw new HorseNotFoundException(horse.getName());
-    }
-    horseList.get(idx).setCondition(condition);
+    require(horse).setCondition(condition);
   }
 
   public void changeWeight(Horse horse, double kg) throws HorseNotFoundException {
-    int idx = horseList.indexOf(horse);
-    if (idx == -1) {
-      throw new HorseNotFoundException(horse.getName());
-    }
-    horseList.get(idx).setWeightKg(kg);
+    require(horse).setWeightKg(kg);
   }
 
   public long countByStatus(HorseCondition condition) {
@@ -109,7 +150,8 @@ public class Stable implements Serializable {
   }
 
   public Horse search(String name) {
-    return horseList.stream().filter(h -> h.getName().equalsIgnoreCase(name)).findFirst().orElse(null);
+    List<Horse> sameName = index().get(name.toLowerCase());
+    return sameName == null ? null : sameName.get(0);
   }
 
   public List<Horse> searchPartial(String frag) {
@@ -122,7 +164,7 @@ public class Stable implements Serializable {
   }
 
   public void summary() {
-    System.out.printf("Summary for '%s' (%d/%d):%n", stableName, horseList.size(), maxCapacity);
+    System.out.printf("Summary for '%s' (%d/%d):%n", stableName, getCurrentLoad(), maxCapacity);
     for (Horse h : horseList) h.print();
   }
 
@@ -131,6 +173,63 @@ public class Stable implements Serializable {
   }
 
   public double occupancyPercent() {
-    return (100.0 * horseList.size()) / maxCapacity;
+    return (100.0 * getCurrentLoad()) / maxCapacity;
+  }
+
+  private Horse require(Horse horse) throws HorseNotFoundException {
+    Horse member = find(horse);
+    if (member == null) {
+      throw new HorseNotFoundException(horse.getName());
+    }
+    return member;
+  }
+
+  /** The horse in this stable equal to the given one, or null. */
+  private Horse find(Horse horse) {
+    Map<String, List<Horse>> byName = index();
+    if (members.contains(horse)) {
+      return horse;
+    }
+    List<Horse> sameName = byName.get(horse.getName().toLowerCase());
+    if (sameName != null) {
+      for (Horse candidate : sameName) {
+        if (candidate.equals(horse)) return candidate;
+      }
+    }
+    return null;
+  }
+
+  private void unlink(Horse member) {
+    // Remove the exact instance so an equal horse earlier in the list stays put
+    for (Iterator<Horse> it = horseList.iterator(); it.hasNext(); ) {
+      if (it.next() == member) {
+        it.remove();
+        break;
+      }
+    }
+    String key = member.getName().toLowerCase();
+    List<Horse> sameName = horsesByName.get(key);
+    sameName.removeIf(h -> h == member);
+    if (sameName.isEmpty()) {
+      horsesByName.remove(key);
+    }
+    members.remove(member);
+  }
+
+  private Map<String, List<Horse>> index() {
+    if (horsesByName == null || indexedList != horseList || members.size() != horseList.size()) {
+      horsesByName = new HashMap<>();
+      members = Collections.newSetFromMap(new IdentityHashMap<>());
+      indexedList = horseList;
+      for (Horse horse : horseList) {
+        indexAdd(horse);
+      }
+    }
+    return horsesByName;
+  }
+
+  private void indexAdd(Horse horse) {
+    horsesByName.computeIfAbsent(horse.getName().toLowerCase(), k -> new ArrayList<>(1)).add(horse);
+    members.add(horse);
   }
 }
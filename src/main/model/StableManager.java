@@ -37,14 +37,7 @@ public class StableManager {
   }
 
   public List<Stable> findEmpty() {
-    List<Stable> allStables = stableDAO.findAll();
-    List<Stable> result = new ArrayList<>();
-    for (Stable s : allStables) {
-      if (s.getHorseList().isEmpty()) {
-        result.add(s);
-      }
-    }
-    return result;
+    return stableDAO.findEmpty();
   }
 
   public void summary() {
@@ -66,6 +59,10 @@ public class StableManager {
     return stableDAO.findAll();
   }
 
+  public List<Stable> getAllStablesWithHorses() {
+    return stableDAO.findAllWithHorses();
+  }
+
   public List<Stable> sortStablesByLoad() {
     List<Stable> sorted = stableDAO.findAll();
     sorted.sort(Comparator.comparingDouble(Stable::occupancyPercent).reversed());
@@ -8,16 +8,29 @@ import model.Horse;
 import model.HorseCondition;
 import model.HorseType;
 import model.Stable;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import util.HibernateUtil;
+import util.SecondLevelCache;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class CSVService {
-    private static final String CSV_SEPARATOR = ",";
+    private static final int EXPORT_BUFFER_SIZE = 1 << 16;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
     private final StableDAO stableDAO;
     private final HorseDAO horseDAO;
 
@@ -41,37 +54,55 @@ public class CSVService {
                     writer.write(String.format("%s,%d,%d",
                             escapeCSV(stable.getStableName()),
                             stable.getMaxCapacity(),
-                            stable.getHorseList().size()));
+                            stable.getCurrentLoad()));
                     writer.newLine();
                 }
             }
         }
     }
 
+    /**
+     * Streams every horse to CSV without materializing the table. Rows are read as
+     * a scalar projection through a stateless session and a forward-only cursor,
+     * so neither entities nor a persistence context are kept, and each line is
+     * assembled in one reused buffer. Heap use stays flat regardless of row count.
+     */
     public void exportHorsesToCSV(String filename) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename), EXPORT_BUFFER_SIZE)) {
             // Write header
             writer.write("Name,Breed,Type,Condition,Age,Price,Weight,StableName");
             writer.newLine();
 
-            // Use HQL to fetch horses
-            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-                Query<Horse> query = session.createQuery("FROM Horse h LEFT JOIN FETCH h.stable", Horse.class);
-                List<Horse> horses = query.list();
-
-                for (Horse horse : horses) {
-                    String stableName = horse.getStable() != null ? horse.getStable().getStableName() : "";
-                    writer.write(String.format("%s,%s,%s,%s,%d,%.2f,%.2f,%s",
-                            escapeCSV(horse.getName()),
-                            escapeCSV(horse.getBreed()),
-                            horse.getType(),
-                            horse.getCondition(),
-                            horse.getAge(),
-                            horse.getPrice(),
-                            horse.getWeightKg(),
-                            escapeCSV(stableName)));
-                    writer.newLine();
+            StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession();
+            try {
+                Query<Object[]> query = session.createQuery(
+                        "SELECT h.name, h.breed, h.type, h.condition, h.age, h.price, h.weightKg, s.stableName " +
+                        "FROM Horse h LEFT JOIN h.stable s", Object[].class);
+                query.setFetchSize(EXPORT_FETCH_SIZE);
+                query.setReadOnly(true);
+
+                StringBuilder row = new StringBuilder(256);
+                ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+                try {
+                    while (results.next()) {
+                        Object[] horse = results.get();
+                        row.setLength(0);
+                        row.append(escapeCSV((String) horse[0])).append(',');
+                        row.append(escapeCSV((String) horse[1])).append(',');
+                        row.append(horse[2]).append(',');
+                        row.append(horse[3]).append(',');
+                        row.append((int) (Integer) horse[4]).append(',');
+                        appendFixed2(row, (Double) horse[5]).append(',');
+                        appendFixed2(row, (Double) horse[6]).append(',');
+                        row.append(escapeCSV((String) horse[7]));
+                        writer.append(row);
+                        writer.newLine();
+                    }
+                } finally {
+                    results.close();
                 }
+            } finally {
+                session.close();
             }
         }
     }
@@ -81,15 +112,15 @@ public class CSVService {
             String line;
             boolean firstLine = true;
 
-            while ((line = reader.readLine()) != null) {
+            while ((line = CsvFields.readRecord(reader)) != null) {
                 if (firstLine) {
                     firstLine = false;
                     continue; // Skip header
                 }
 
-                String[] parts = line.split(CSV_SEPARATOR);
+                String[] parts = CsvFields.split(line);
                 if (parts.length >= 2) {
-                    String name = unescapeCSV(parts[0]);
+                    String name = parts[0];
                     int capacity = Integer.parseInt(parts[1].trim());
 
                     Stable stable = new Stable(name, capacity);
@@ -104,27 +135,19 @@ public class CSVService {
             String line;
             boolean firstLine = true;
 
-            while ((line = reader.readLine()) != null) {
+            while ((line = CsvFields.readRecord(reader)) != null) {
                 if (firstLine) {
                     firstLine = false;
                     continue; // Skip header
                 }
 
-                String[] parts = line.split(CSV_SEPARATOR);
+                String[] parts = CsvFields.split(line);
                 if (parts.length >= 7) {
-                    String name = unescapeCSV(parts[0]);
-                    String breed = unescapeCSV(parts[1]);
-                    HorseType type = HorseType.valueOf(parts[2].trim());
-                    HorseCondition condition = HorseCondition.valueOf(parts[3].trim());
-                    int age = Integer.parseInt(parts[4].trim());
-                    double price = Double.parseDouble(parts[5].trim());
-                    double weight = Double.parseDouble(parts[6].trim());
-
-                    Horse horse = new Horse(name, breed, type, condition, age, price, weight);
+                    Horse horse = parseHorse(parts);
 
                     // If stable name is provided, associate with stable
-                    if (parts.length >= 8 && !parts[7].trim().isEmpty()) {
-                        String stableName = unescapeCSV(parts[7]);
+                    String stableName = stableNameOf(parts);
+                    if (stableName != null) {
                         Stable stable = stableDAO.findByName(stableName);
                         if (stable != null) {
                             horse.setStable(stable);
@@ -137,6 +160,210 @@ public class CSVService {
         }
     }
 
+    public ImportReport importHorsesFromCSVBatched(String filename) throws IOException {
+        return importHorsesFromCSVBatched(filename, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Bulk variant of {@link #importHorsesFromCSV(String)} for large files.
+     * The file is streamed, stable names are resolved once up front and rows are
+     * written through a single session, one transaction per batch, with the
+     * persistence context flushed and cleared after every batch. A failing batch
+     * is rolled back and reported, the import carries on with the next one.
+     */
+    public ImportReport importHorsesFromCSVBatched(String filename, int batchSize) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        ImportReport report = new ImportReport();
+        long started = System.nanoTime();
+        Session session = openBulkSession(batchSize);
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            Map<String, Long> stableIds = findStableIdsByName(session);
+            List<Horse> batch = new ArrayList<>(batchSize);
+            long lineNumber = 1;
+            long batchStart = 2;
+            String line = CsvFields.readRecord(reader); // Skip header
+
+            while ((line = CsvFields.readRecord(reader)) != null) {
+                long recordLine = ++lineNumber;
+                lineNumber += CsvFields.lineBreaks(line);
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.rowRead();
+
+                String[] parts = CsvFields.split(line);
+                Horse horse;
+                try {
+                    if (parts.length < 7) {
+                        throw new IllegalArgumentException("expected at least 7 columns, got " + parts.length);
+                    }
+                    horse = parseHorse(parts);
+                } catch (IllegalArgumentException e) {
+                    report.rowSkipped(recordLine, e.getMessage());
+                    continue;
+                }
+
+                String stableName = stableNameOf(parts);
+                Long stableId = stableName != null ? stableIds.get(stableName) : null;
+                if (stableId != null) {
+                    // Uninitialized proxy: no SELECT, only the foreign key is written
+                    horse.setStable(session.load(Stable.class, stableId));
+                }
+
+                batch.add(horse);
+                if (batch.size() == batchSize) {
+                    session = writeBatch(session, batch, batchStart, lineNumber, report);
+                    batchStart = lineNumber + 1;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                session = writeBatch(session, batch, batchStart, lineNumber, report);
+            }
+        } finally {
+            session.close();
+            report.finish(System.nanoTime() - started);
+        }
+        return report;
+    }
+
+    public ImportReport importHorsesFromCSVParallel(String filename) throws IOException {
+        return importHorsesFromCSVParallel(filename, DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Variant of {@link #importHorsesFromCSVBatched(String, int)} for very large
+     * files: parsing runs on {@code parallelism} threads over memory-mapped chunks
+     * of the file (see {@link ParallelHorseCsvParser}), while this thread writes
+     * the parsed rows in file order through the same batched transactions.
+     */
+    public ImportReport importHorsesFromCSVParallel(String filename, int batchSize, int parallelism) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        ImportReport report = new ImportReport();
+        long started = System.nanoTime();
+        Session session = openBulkSession(batchSize);
+        try (ParallelHorseCsvParser parser = new ParallelHorseCsvParser(Path.of(filename), parallelism)) {
+            Map<String, Long> stableIds = findStableIdsByName(session);
+            List<Horse> batch = new ArrayList<>(batchSize);
+            long batchStart = 2;
+            long lastLine = 1;
+
+            while (parser.hasNext()) {
+                for (ParallelHorseCsvParser.Row row : parser.next()) {
+                    report.rowRead();
+                    lastLine = row.line;
+                    if (row.error != null) {
+                        report.rowSkipped(row.line, row.error);
+                        continue;
+                    }
+                    Long stableId = row.stableName != null ? stableIds.get(row.stableName) : null;
+                    if (stableId != null) {
+                        row.horse.setStable(session.load(Stable.class, stableId));
+                    }
+                    if (batch.isEmpty()) {
+                        batchStart = row.line;
+                    }
+                    batch.add(row.horse);
+                    if (batch.size() == batchSize) {
+                        session = writeBatch(session, batch, batchStart, row.line, report);
+                    }
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                session = writeBatch(session, batch, batchStart, lastLine, report);
+            }
+        } finally {
+            session.close();
+            report.finish(System.nanoTime() - started);
+        }
+        return report;
+    }
+
+    private Session openBulkSession(int batchSize) {
+        Session session = HibernateUtil.getSessionFactory().openSession();
+        session.setJdbcBatchSize(batchSize);
+        session.setCacheMode(CacheMode.IGNORE);
+        return session;
+    }
+
+    private Map<String, Long> findStableIdsByName(Session session) {
+        Map<String, Long> stableIds = new HashMap<>();
+        List<Object[]> rows = session.createQuery("SELECT s.stableName, s.id FROM Stable s", Object[].class).list();
+        for (Object[] row : rows) {
+            stableIds.put((String) row[0], (Long) row[1]);
+        }
+        return stableIds;
+    }
+
+    /**
+     * Writes one batch in its own transaction. After a failure the session is
+     * discarded, as Hibernate sessions must not be reused once an exception was
+     * thrown, and a fresh one is returned for the remaining batches.
+     */
+    private Session writeBatch(Session session, List<Horse> batch, long firstLine, long lastLine, ImportReport report) {
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            for (Horse horse : batch) {
+                session.save(horse);
+            }
+            session.flush();
+            transaction.commit();
+            session.clear();
+            report.rowsImported(batch.size());
+            evictStablesOf(batch);
+            return session;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            report.batchFailed(firstLine, lastLine, e.getMessage());
+            int jdbcBatchSize = session.getJdbcBatchSize();
+            session.close();
+            return openBulkSession(jdbcBatchSize);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    // The bulk session bypasses the horse DAO, so the cached occupancy of every
+    // stable the batch added to is dropped here, once the batch is committed
+    private void evictStablesOf(List<Horse> batch) {
+        Set<Long> stableIds = new HashSet<>();
+        for (Horse horse : batch) {
+            if (horse.getStable() != null) {
+                stableIds.add(horse.getStable().getId());
+            }
+        }
+        stableIds.forEach(SecondLevelCache::evictStable);
+    }
+
+    private Horse parseHorse(String[] parts) {
+        String name = parts[0];
+        String breed = parts[1];
+        HorseType type = CsvFields.enumOf(HorseType.class, parts[2]);
+        HorseCondition condition = CsvFields.enumOf(HorseCondition.class, parts[3]);
+        int age = Integer.parseInt(parts[4].trim());
+        double price = Double.parseDouble(parts[5].trim());
+        double weight = Double.parseDouble(parts[6].trim());
+
+        return new Horse(name, breed, type, condition, age, price, weight);
+    }
+
+    private String stableNameOf(String[] parts) {
+        if (parts.length >= 8 && !parts[7].trim().isEmpty()) {
+            return parts[7];
+        }
+        return null;
+    }
+
     private String escapeCSV(String value) {
         if (value == null) {
             return "";
@@ -147,15 +374,23 @@ public class CSVService {
         return value;
     }
 
-    private String unescapeCSV(String value) {
-        if (value == null) {
-            return "";
+    /**
+     * Appends a value with two decimals, like "%.2f" but without a Formatter and
+     * always with a '.' separator regardless of the default locale.
+     */
+    private StringBuilder appendFixed2(StringBuilder out, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e15) {
+            return out.append(value);
         }
-        value = value.trim();
-        if (value.startsWith("\"") && value.endsWith("\"")) {
-            value = value.substring(1, value.length() - 1);
-            value = value.replace("\"\"", "\"");
+        long cents = Math.round(Math.abs(value) * 100);
+        if (value < 0 && cents != 0) {
+            out.append('-');
         }
-        return value;
+        out.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
     }
 }
@@ -0,0 +1,88 @@
+package service;
+
+import exceptions.StableCapacityException;
+import model.Stable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Capacity check for adding horses that holds under concurrency without a lock.
+ *
+ * Each stable has an atomic count of admissions in flight. An admission first
+ * takes a slot, then reads that count and the number of horses already stored.
+ * It is refused when the two together exceed the capacity. An admission keeps
+ * its slot until its transaction has ended, so every admitted horse is in
+ * the count or in the stored rows seen by any later check. Two racing requests
+ * can therefore never both take the last place. At worst both are refused
+ * while one of them is committing.
+ *
+ * Stables only ever touch their own counter, so unrelated stables do not
+ * contend. This guards writers in this JVM; rows stored by other processes
+ * are still counted, but not their admissions in flight.
+ */
+public final class CapacityAdmission {
+    private static final CapacityAdmission INSTANCE = new CapacityAdmission();
+
+    private final ConcurrentMap<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public static CapacityAdmission getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reserves a place in the stable or throws when it is full.
+     *
+     * @param storedHorses counts the stable's committed horses; called after the
+     *                     slot is taken, typically a COUNT query in the caller's
+     *                     transaction
+     * @return a ticket to close once the transaction has ended, for example
+     *         through {@code UnitOfWork.afterCompletion(ticket::close)}
+     */
+    public Ticket admit(Stable stable, LongSupplier storedHorses) throws StableCapacityException {
+        AtomicInteger admitting = inFlight.get(stable.getId());
+        if (admitting == null) {
+            admitting = inFlight.computeIfAbsent(stable.getId(), id -> new AtomicInteger());
+        }
+        Ticket ticket = new Ticket(admitting);
+        int pending = admitting.incrementAndGet();
+        boolean admitted = false;
+        try {
+            admitted = storedHorses.getAsLong() + pending <= stable.getMaxCapacity();
+        } finally {
+            if (!admitted) {
+                ticket.close();
+            }
+        }
+        if (!admitted) {
+            throw new StableCapacityException(stable.getStableName(), stable.getMaxCapacity());
+        }
+        return ticket;
+    }
+
+    /** Admissions currently in flight for a stable. */
+    public int getInFlight(Long stableId) {
+        AtomicInteger admitting = inFlight.get(stableId);
+        return admitting == null ? 0 : admitting.get();
+    }
+
+    /** A reserved place, released by close. */
+    public static final class Ticket implements AutoCloseable {
+        private final AtomicInteger admitting;
+        private boolean closed;
+
+        private Ticket(AtomicInteger admitting) {
+            this.admitting = admitting;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                admitting.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Field-level CSV helpers shared by the line based and the parallel importers.
+ */
+final class CsvFields {
+
+    private CsvFields() {}
+
+    /**
+     * Reads one record, or null at the end of the input. A record continues on
+     * the next line while a quoted field is still open, so values written with
+     * line breaks by the export come back whole.
+     */
+    static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null || quotes(line) % 2 == 0) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        String next;
+        while ((next = reader.readLine()) != null) {
+            record.append('\n').append(next);
+            if (quotes(next) % 2 == 1) {
+                break; // the open field was closed on this line
+            }
+        }
+        return record.toString();
+    }
+
+    /** Line breaks inside a record read by {@link #readRecord}. */
+    static int lineBreaks(String record) {
+        int count = 0;
+        for (int i = record.indexOf('\n'); i >= 0; i = record.indexOf('\n', i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int quotes(String line) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Splits one record into fields. Quoted fields may contain commas, line
+     * breaks and doubled quotes and are returned unquoted and verbatim; unquoted
+     * fields are trimmed.
+     */
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            while (i < length && line.charAt(i) == ' ') {
+                i++;
+            }
+            field.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (i < length) {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                while (i < length && line.charAt(i) != ',') {
+                    i++; // anything between the closing quote and the separator
+                }
+                fields.add(field.toString());
+            } else {
+                int start = i;
+                while (i < length && line.charAt(i) != ',') {
+                    i++;
+                }
+                fields.add(line.substring(start, i).trim());
+            }
+            if (i >= length) {
+                return fields.toArray(new String[0]);
+            }
+            i++; // separator
+        }
+    }
+
+    /**
+     * Enum constant by name or by display label ({@code toString}), ignoring case,
+     * so files written by the horse export can be imported again.
+     */
+    static <E extends Enum<E>> E enumOf(Class<E> type, String value) {
+        String trimmed = value.trim();
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(trimmed) || constant.toString().equalsIgnoreCase(trimmed)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No " + type.getSimpleName() + " named '" + trimmed + "'");
+    }
+}
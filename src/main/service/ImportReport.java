@@ -0,0 +1,66 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: row counts, throughput and the batches that failed.
+ * A failed batch is rolled back on its own, the rest of the file is still imported.
+ */
+public class ImportReport {
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsSkipped;
+    private long elapsedNanos;
+    private final List<String> failures = new ArrayList<>();
+
+    void rowRead() { rowsRead++; }
+    void rowsImported(long count) { rowsImported += count; }
+    void rowSkipped(long lineNumber, String reason) {
+        rowsSkipped++;
+        failures.add(String.format("Line %d skipped: %s", lineNumber, reason));
+    }
+    void batchFailed(long firstLine, long lastLine, String reason) {
+        failures.add(String.format("Batch of lines %d-%d rolled back: %s", firstLine, lastLine, reason));
+    }
+    void finish(long elapsedNanos) { this.elapsedNanos = elapsedNanos; }
+
+    public long getRowsRead() { return rowsRead; }
+    public long getRowsImported() { return rowsImported; }
+    public long getRowsSkipped() { return rowsSkipped; }
+    public long getRowsFailed() { return rowsRead - rowsImported - rowsSkipped; }
+    public double getElapsedSeconds() { return elapsedNanos / 1_000_000_000.0; }
+    public List<String> getFailures() { return Collections.unmodifiableList(failures); }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rowsImported / getElapsedSeconds() : 0.0;
+    }
+
+    public boolean hasFailures() { return !failures.isEmpty(); }
+
+    /**
+     * The first {@code limit} failures, one per line, followed by how many more
+     * there were. A file full of bad rows would otherwise make a message
+     * with one line per row.
+     */
+    public String failureSummary(int limit) {
+        StringBuilder summary = new StringBuilder();
+        for (String failure : failures.subList(0, Math.min(limit, failures.size()))) {
+            if (summary.length() > 0) {
+                summary.append('\n');
+            }
+            summary.append(failure);
+        }
+        if (failures.size() > limit) {
+            summary.append("\n... and ").append(failures.size() - limit).append(" more");
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d of %d rows (%d skipped, %d failed) in %.2fs, %.0f rows/s",
+                rowsImported, rowsRead, rowsSkipped, getRowsFailed(), getElapsedSeconds(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,371 @@
+package service;
+
+import model.Horse;
+import model.HorseCondition;
+import model.HorseType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses a horse CSV file (Name,Breed,Type,Condition,Age,Price,Weight[,StableName])
+ * on several threads. The file is cut into line-aligned chunks, each chunk is
+ * memory-mapped and parsed straight from the mapped bytes by a fork-join worker,
+ * and the parsed chunks are handed out in file order through {@link #next()}.
+ * At most two chunks per worker are parsed ahead of the consumer, so memory use
+ * does not grow with the file.
+ */
+final class ParallelHorseCsvParser implements Closeable {
+    private static final int FIELDS = 8;
+    private static final long MIN_CHUNK = 1L << 20;
+    private static final long MAX_CHUNK = 1L << 28;
+    private static final long SCAN_WINDOW = 1L << 28;
+
+    /** One data line: the horse and its stable name, or why it was rejected. */
+    static final class Row {
+        final long line;
+        final Horse horse;
+        final String stableName;
+        final String error;
+
+        private Row(long line, Horse horse, String stableName, String error) {
+            this.line = line;
+            this.horse = horse;
+            this.stableName = stableName;
+            this.error = error;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final List<long[]> chunks = new ArrayList<>(); // {start, end, first line number}
+    private final Deque<ForkJoinTask<List<Row>>> inFlight = new ArrayDeque<>();
+    private int nextChunk;
+
+    ParallelHorseCsvParser(Path path, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (parallelism * 4L)));
+            findChunks(size, chunkSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.maxInFlight = parallelism * 2;
+    }
+
+    boolean hasNext() {
+        return nextChunk < chunks.size() || !inFlight.isEmpty();
+    }
+
+    /** Rows of the next chunk in file order, waiting for it to be parsed if needed. */
+    List<Row> next() {
+        while (inFlight.size() < maxInFlight && nextChunk < chunks.size()) {
+            long[] chunk = chunks.get(nextChunk++);
+            inFlight.addLast(pool.submit(() -> parseChunk(chunk[0], chunk[1], chunk[2])));
+        }
+        return inFlight.removeFirst().join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        pool.shutdownNow();
+        channel.close();
+    }
+
+    /**
+     * Splits the data part of the file (after the header line) into chunks of
+     * roughly chunkSize bytes that end on a line break outside quotes. This is a
+     * plain byte scan, far cheaper than the parsing it enables.
+     */
+    private void findChunks(long size, long chunkSize) throws IOException {
+        boolean inQuotes = false;
+        long line = 1;
+        long chunkStart = -1;
+        long chunkLine = 0;
+        long target = 0;
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW) {
+            int windowLength = (int) Math.min(SCAN_WINDOW, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    line++;
+                    long position = windowStart + i + 1;
+                    if (chunkStart < 0 || position >= target) {
+                        if (chunkStart >= 0) {
+                            chunks.add(new long[] {chunkStart, position, chunkLine});
+                        }
+                        // The first boundary is the end of the header line
+                        chunkStart = position;
+                        chunkLine = line;
+                        target = position + chunkSize;
+                    }
+                }
+            }
+        }
+        if (chunkStart >= 0 && chunkStart < size) {
+            chunks.add(new long[] {chunkStart, size, chunkLine});
+        }
+    }
+
+    private List<Row> parseChunk(long start, long end, long firstLine) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        return new ChunkParser(buffer).parse(firstLine);
+    }
+
+    /** Parses one mapped chunk; not thread-safe, each task has its own. */
+    private static final class ChunkParser {
+        private static final EnumBytes<HorseType> TYPES = new EnumBytes<>(HorseType.values());
+        private static final EnumBytes<HorseCondition> CONDITIONS = new EnumBytes<>(HorseCondition.values());
+
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private final int[] fieldStart = new int[FIELDS];
+        private final int[] fieldEnd = new int[FIELDS];
+        private final boolean[] fieldEscaped = new boolean[FIELDS];
+        private byte[] scratch = new byte[256];
+        private int position;
+        private int newlinesSkipped; // line breaks consumed by the last scanLine
+
+        ChunkParser(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        List<Row> parse(long firstLine) {
+            List<Row> rows = new ArrayList<>();
+            long line = firstLine;
+            while (position < limit) {
+                long lineNumber = line;
+                int fields = scanLine();
+                line += newlinesSkipped;
+                if (fields == 1 && fieldStart[0] == fieldEnd[0]) {
+                    continue; // blank line
+                }
+                if (fields < 7) {
+                    rows.add(new Row(lineNumber, null, null, "expected at least 7 columns, got " + fields));
+                    continue;
+                }
+                try {
+                    Horse horse = new Horse(string(0), string(1),
+                            TYPES.match(buffer, fieldStart[2], fieldEnd[2]),
+                            CONDITIONS.match(buffer, fieldStart[3], fieldEnd[3]),
+                            parseInt(4), parseDouble(5), parseDouble(6));
+                    String stableName = fields >= 8 && fieldStart[7] < fieldEnd[7] ? string(7) : null;
+                    rows.add(new Row(lineNumber, horse, stableName, null));
+                } catch (IllegalArgumentException e) {
+                    rows.add(new Row(lineNumber, null, null, e.getMessage()));
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * Records the bounds of up to FIELDS fields of the line at position and
+         * moves position to the start of the next line. Returns the field count.
+         */
+        private int scanLine() {
+            int fields = 0;
+            newlinesSkipped = 1;
+            while (true) {
+                while (position < limit && buffer.get(position) == ' ') {
+                    position++;
+                }
+                int start;
+                int end;
+                boolean escaped = false;
+                if (position < limit && buffer.get(position) == '"') {
+                    start = ++position;
+                    while (true) {
+                        if (position >= limit) {
+                            end = limit;
+                            break;
+                        }
+                        byte b = buffer.get(position);
+                        if (b == '"') {
+                            if (position + 1 < limit && buffer.get(position + 1) == '"') {
+                                escaped = true;
+                                position += 2;
+                                continue;
+                            }
+                            end = position++;
+                            break;
+                        }
+                        if (b == '\n') {
+                            newlinesSkipped++;
+                        }
+                        position++;
+                    }
+                    while (position < limit && buffer.get(position) != ',' && buffer.get(position) != '\n') {
+                        position++;
+                    }
+                } else {
+                    start = position;
+                    while (position < limit && buffer.get(position) != ',' && buffer.get(position) != '\n') {
+                        position++;
+                    }
+                    end = position;
+                    while (end > start && (buffer.get(end - 1) == ' ' || buffer.get(end - 1) == '\r')) {
+                        end--;
+                    }
+                }
+                if (fields < FIELDS) {
+                    fieldStart[fields] = start;
+                    fieldEnd[fields] = end;
+                    fieldEscaped[fields] = escaped;
+                }
+                fields++;
+                if (position >= limit || buffer.get(position) == '\n') {
+                    position++;
+                    return fields;
+                }
+                position++; // separator
+            }
+        }
+
+        private String string(int field) {
+            int start = fieldStart[field];
+            int length = fieldEnd[field] - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            int out = 0;
+            for (int i = start; i < start + length; i++) {
+                byte b = buffer.get(i);
+                scratch[out++] = b;
+                if (b == '"' && fieldEscaped[field]) {
+                    i++; // doubled quote
+                }
+            }
+            return new String(scratch, 0, out, StandardCharsets.UTF_8);
+        }
+
+        private int parseInt(int field) {
+            int i = fieldStart[field];
+            int end = fieldEnd[field];
+            boolean negative = i < end && buffer.get(i) == '-';
+            if (negative || (i < end && buffer.get(i) == '+')) {
+                i++;
+            }
+            if (i == end || end - i > 9) {
+                return Integer.parseInt(string(field).trim());
+            }
+            int value = 0;
+            for (; i < end; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + string(field) + "\"");
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Plain decimals with up to 15 significant digits are computed exactly as
+         * mantissa / 10^scale, which is correctly rounded. Anything else (exponents,
+         * longer numbers) goes through Double.parseDouble.
+         */
+        private double parseDouble(int field) {
+            int i = fieldStart[field];
+            int end = fieldEnd[field];
+            boolean negative = i < end && buffer.get(i) == '-';
+            if (negative || (i < end && buffer.get(i) == '+')) {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b == '.' && scale < 0) {
+                    scale = 0;
+                    continue;
+                }
+                int digit = b - '0';
+                if (digit < 0 || digit > 9 || digits == 15) {
+                    return Double.parseDouble(string(field).trim());
+                }
+                mantissa = mantissa * 10 + digit;
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            if (digits == 0) {
+                return Double.parseDouble(string(field).trim());
+            }
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return negative ? -value : value;
+        }
+
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+        };
+    }
+
+    /** Matches enum constants by name or display label, ASCII case-insensitive, on raw bytes. */
+    private static final class EnumBytes<E extends Enum<E>> {
+        private final E[] constants;
+        private final byte[][] names;
+        private final byte[][] labels;
+
+        EnumBytes(E[] constants) {
+            this.constants = constants;
+            this.names = new byte[constants.length][];
+            this.labels = new byte[constants.length][];
+            for (int i = 0; i < constants.length; i++) {
+                names[i] = constants[i].name().getBytes(StandardCharsets.US_ASCII);
+                labels[i] = constants[i].toString().getBytes(StandardCharsets.US_ASCII);
+            }
+        }
+
+        E match(MappedByteBuffer buffer, int start, int end) {
+            for (int i = 0; i < constants.length; i++) {
+                if (equalsIgnoreCase(buffer, start, end, names[i]) || equalsIgnoreCase(buffer, start, end, labels[i])) {
+                    return constants[i];
+                }
+            }
+            byte[] value = new byte[end - start];
+            buffer.get(start, value);
+            throw new IllegalArgumentException("No " + constants[0].getDeclaringClass().getSimpleName()
+                    + " named '" + new String(value, StandardCharsets.UTF_8) + "'");
+        }
+
+        private static boolean equalsIgnoreCase(MappedByteBuffer buffer, int start, int end, byte[] expected) {
+            if (end - start != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                if (lower(buffer.get(start + i)) != lower(expected[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int lower(byte b) {
+            return b >= 'A' && b <= 'Z' ? b | 0x20 : b;
+        }
+    }
+}
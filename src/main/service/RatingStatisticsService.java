@@ -12,7 +12,7 @@ public class RatingStatisticsService {
     }
 
     /**
-     * Gets average rating and count for each horse using Criteria API (GROUP BY)
+     * Gets average rating and count for each horse from the maintained rating stats
      * @return Map with horse name as key and a map of statistics (average, count) as value
      */
     public Map<String, Object> getHorseRatingStatistics() {
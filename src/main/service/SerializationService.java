@@ -4,17 +4,30 @@ import model.Horse;
 import model.Stable;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.List;
 
 public class SerializationService {
 
+    /**
+     * Writes a snapshot holding just this stable.
+     */
     public void saveStable(Stable stable, String filename) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(stable);
-        }
+        StableSnapshotCodec.write(List.of(stable), Path.of(filename));
     }
 
+    /**
+     * Reads the first stable of a snapshot, or a stable written with Java serialization.
+     * Use {@link SnapshotReader} to pick a stable out of a larger snapshot.
+     */
     public Stable loadStable(String filename) throws IOException, ClassNotFoundException {
+        if (StableSnapshotCodec.isSnapshot(Path.of(filename))) {
+            List<Stable> stables = StableSnapshotCodec.read(Path.of(filename));
+            if (stables.isEmpty()) {
+                throw new IOException("Snapshot contains no stables");
+            }
+            return stables.get(0);
+        }
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
             return (Stable) ois.readObject();
         }
@@ -32,19 +45,37 @@ public class SerializationService {
         }
     }
 
+    /**
+     * Writes the stables and their horses in the binary snapshot format, see {@link StableSnapshotCodec}.
+     */
     public void saveStables(List<Stable> stables, String filename) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(stables);
-        }
+        StableSnapshotCodec.write(stables, Path.of(filename));
     }
 
+    /**
+     * Reads a snapshot written by {@link #saveStables}, or a list written with
+     * Java serialization by earlier versions.
+     */
     @SuppressWarnings("unchecked")
     public List<Stable> loadStables(String filename) throws IOException, ClassNotFoundException {
+        if (StableSnapshotCodec.isSnapshot(Path.of(filename))) {
+            return StableSnapshotCodec.read(Path.of(filename));
+        }
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
             return (List<Stable>) ois.readObject();
         }
     }
 
+    /**
+     * Java serialization of the stable list, the format used before snapshots.
+     * Kept so old files can still be produced and compared against.
+     */
+    public void saveStablesLegacy(List<Stable> stables, String filename) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
+            oos.writeObject(stables);
+        }
+    }
+
     public void saveHorses(List<Horse> horses, String filename) throws IOException {
         try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
             oos.writeObject(horses);
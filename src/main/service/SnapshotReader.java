@@ -0,0 +1,149 @@
+package service;
+
+import model.Horse;
+import model.Stable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Random access to an indexed stable snapshot (format version 2). Opening
+ * reads the header tables and the footer index only; each stable is decoded
+ * from its own memory-mapped record when asked for, so the cost of a lookup
+ * does not depend on the size of the archive.
+ */
+public class SnapshotReader implements Closeable {
+    private static final int HEADER_BUFFER_SIZE = 1 << 17;
+
+    private final FileChannel channel;
+    private final StableSnapshotCodec.Header header;
+    private final List<String> stableNames;
+    private final Map<String, long[]> records;
+
+    private SnapshotReader(FileChannel channel, StableSnapshotCodec.Header header,
+                           List<String> stableNames, Map<String, long[]> records) {
+        this.channel = channel;
+        this.header = header;
+        this.stableNames = stableNames;
+        this.records = records;
+    }
+
+    public static SnapshotReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            StableSnapshotCodec.Header header = StableSnapshotCodec.Header.read(
+                    new StableSnapshotCodec.Reader(channel, ByteBuffer.allocate(HEADER_BUFFER_SIZE)));
+            if (header.version < 2) {
+                throw new IOException("Snapshot has no index, save it again to read single stables");
+            }
+
+            long size = channel.size();
+            if (size < StableSnapshotCodec.TRAILER_BYTES) {
+                throw new IOException("Snapshot index is missing or damaged");
+            }
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    size - StableSnapshotCodec.TRAILER_BYTES, StableSnapshotCodec.TRAILER_BYTES);
+            long indexOffset = trailer.getLong();
+            byte[] magic = new byte[StableSnapshotCodec.TRAILER_MAGIC.length];
+            trailer.get(magic);
+            if (!Arrays.equals(magic, StableSnapshotCodec.TRAILER_MAGIC) || indexOffset < 0
+                    || indexOffset > size - StableSnapshotCodec.TRAILER_BYTES) {
+                throw new IOException("Snapshot index is missing or damaged");
+            }
+
+            StableSnapshotCodec.Reader index = new StableSnapshotCodec.Reader(null,
+                    map(channel, indexOffset, size - StableSnapshotCodec.TRAILER_BYTES - indexOffset));
+            int count = index.i32();
+            List<String> names = new ArrayList<>(count);
+            Map<String, long[]> records = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = index.string();
+                long offset = index.i64();
+                int length = index.i32();
+                names.add(name);
+                records.put(name, new long[] {offset, length});
+            }
+            return new SnapshotReader(channel, header, Collections.unmodifiableList(names), records);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Stable names in the order they were written. */
+    public List<String> getStableNames() { return stableNames; }
+
+    public int size() { return stableNames.size(); }
+
+    public boolean contains(String stableName) { return records.containsKey(stableName); }
+
+    /**
+     * Decodes one stable with its horses, or null if the snapshot has no stable of that name.
+     */
+    public Stable readStable(String stableName) throws IOException {
+        StableSnapshotCodec.Reader in = record(stableName);
+        return in == null ? null : StableSnapshotCodec.readStable(in, header);
+    }
+
+    /**
+     * Finds a horse by name (case-insensitive) in one stable, decoding only that horse.
+     */
+    public Horse readHorse(String stableName, String horseName) throws IOException {
+        StableSnapshotCodec.Reader in = record(stableName);
+        if (in == null) {
+            return null;
+        }
+        in.string();
+        in.i32();
+        int horseCount = in.i32();
+        for (int h = 0; h < horseCount; h++) {
+            String name = in.string();
+            in.ensure(StableSnapshotCodec.HORSE_FIXED_BYTES - 2);
+            ByteBuffer buffer = in.buffer;
+            if (!name.equalsIgnoreCase(horseName)) {
+                buffer.position(buffer.position() + StableSnapshotCodec.HORSE_FIXED_BYTES - 2);
+                continue;
+            }
+            try {
+                return new Horse(name, header.breeds[buffer.getInt()],
+                        header.types[buffer.get()], header.conditions[buffer.get()],
+                        buffer.getInt(), buffer.getDouble(), buffer.getDouble());
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Corrupt snapshot, horse '" + name + "' has an unknown table index", e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private StableSnapshotCodec.Reader record(String stableName) throws IOException {
+        long[] record = records.get(stableName);
+        if (record == null) {
+            return null;
+        }
+        // Skip the record length field, the index already holds it
+        return new StableSnapshotCodec.Reader(null, map(channel, record[0] + 4, record[1]));
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot region of " + length + " bytes is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+}
@@ -0,0 +1,337 @@
+package service;
+
+import model.Horse;
+import model.HorseCondition;
+import model.HorseType;
+import model.Stable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of stables and their horses.
+ *
+ * <pre>
+ * header   magic "STBL", u16 version, u16 flags
+ *          string table of HorseType names, string table of HorseCondition names,
+ *          string table of breeds
+ * body     i32 stable count, then per stable:
+ *            i32 record length (bytes after this field), string name, i32 capacity,
+ *            i32 horse count, then per horse:
+ *              string name, i32 breed index, u8 type, u8 condition, i32 age,
+ *              f64 price, f64 weight
+ * index    (version 2) i32 entry count, then per stable:
+ *            string name, i64 offset of its record length field, i32 record length
+ * trailer  (version 2) i64 index offset, magic "STBX"
+ * string   u16 byte length + UTF-8 bytes; string table = i32 count + strings
+ * </pre>
+ *
+ * The index and trailer let {@link SnapshotReader} find one stable without
+ * decoding the others. Version 1 files have neither and are only read
+ * sequentially.
+ *
+ * Enum constants are stored as ordinals into the tables in the header, so
+ * reordering or adding constants does not invalidate old files. Database ids
+ * are not part of the snapshot.
+ */
+public final class StableSnapshotCodec {
+    static final byte[] MAGIC = {'S', 'T', 'B', 'L'};
+    static final byte[] TRAILER_MAGIC = {'S', 'T', 'B', 'X'};
+    static final int VERSION = 2;
+    static final int TRAILER_BYTES = 8 + 4;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    static final int HORSE_FIXED_BYTES = 2 + 4 + 1 + 1 + 4 + 8 + 8;
+
+    private StableSnapshotCodec() {}
+
+    /**
+     * True when the file starts with the snapshot magic.
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // keep reading until the magic is complete or the file ends
+            }
+            return !head.hasRemaining() && Arrays.equals(head.array(), MAGIC);
+        }
+    }
+
+    public static void write(List<Stable> stables, Path path) throws IOException {
+        Map<String, Integer> breeds = new HashMap<>();
+        List<String> breedTable = new ArrayList<>();
+        for (Stable stable : stables) {
+            for (Horse horse : stable.getHorseList()) {
+                breeds.computeIfAbsent(horse.getBreed(), breed -> {
+                    breedTable.add(breed);
+                    return breedTable.size() - 1;
+                });
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new Writer(channel);
+            out.ensure(MAGIC.length + 4);
+            out.buffer.put(MAGIC).putShort((short) VERSION).putShort((short) 0);
+            out.stringTable(enumNames(HorseType.values()));
+            out.stringTable(enumNames(HorseCondition.values()));
+            out.stringTable(breedTable);
+
+            out.ensure(4);
+            out.buffer.putInt(stables.size());
+            long[] offsets = new long[stables.size()];
+            int[] lengths = new int[stables.size()];
+            for (int s = 0; s < stables.size(); s++) {
+                Stable stable = stables.get(s);
+                List<Horse> horses = stable.getHorseList();
+                byte[] stableName = utf8(stable.getStableName());
+                byte[][] horseNames = new byte[horses.size()][];
+                int length = 2 + stableName.length + 4 + 4;
+                for (int i = 0; i < horseNames.length; i++) {
+                    horseNames[i] = utf8(horses.get(i).getName());
+                    length += HORSE_FIXED_BYTES + horseNames[i].length;
+                }
+
+                out.ensure(4 + 2 + stableName.length + 8);
+                offsets[s] = out.position();
+                lengths[s] = length;
+                out.buffer.putInt(length);
+                out.string(stableName);
+                out.buffer.putInt(stable.getMaxCapacity()).putInt(horses.size());
+                for (int i = 0; i < horseNames.length; i++) {
+                    Horse horse = horses.get(i);
+                    out.ensure(HORSE_FIXED_BYTES + horseNames[i].length);
+                    out.string(horseNames[i]);
+                    out.buffer.putInt(breeds.get(horse.getBreed()))
+                            .put((byte) horse.getType().ordinal())
+                            .put((byte) horse.getCondition().ordinal())
+                            .putInt(horse.getAge())
+                            .putDouble(horse.getPrice())
+                            .putDouble(horse.getWeightKg());
+                }
+            }
+
+            long indexOffset = out.position();
+            out.ensure(4);
+            out.buffer.putInt(stables.size());
+            for (int s = 0; s < stables.size(); s++) {
+                byte[] stableName = utf8(stables.get(s).getStableName());
+                out.ensure(2 + stableName.length + 12);
+                out.string(stableName);
+                out.buffer.putLong(offsets[s]).putInt(lengths[s]);
+            }
+            out.ensure(TRAILER_BYTES);
+            out.buffer.putLong(indexOffset).put(TRAILER_MAGIC);
+            out.flush();
+        }
+    }
+
+    public static List<Stable> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Reader in = new Reader(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+            Header header = Header.read(in);
+            int stableCount = in.i32();
+            List<Stable> stables = new ArrayList<>(stableCount);
+            for (int s = 0; s < stableCount; s++) {
+                in.i32(); // record length, only needed when skipping records
+                stables.add(readStable(in, header));
+            }
+            return stables;
+        }
+    }
+
+    /**
+     * Decodes one stable record; the reader is positioned after its length field.
+     */
+    static Stable readStable(Reader in, Header header) throws IOException {
+        Stable stable = new Stable(in.string(), in.i32());
+        int horseCount = in.i32();
+        List<Horse> horses = new ArrayList<>(horseCount);
+        try {
+            for (int h = 0; h < horseCount; h++) {
+                String name = in.string();
+                in.ensure(HORSE_FIXED_BYTES - 2);
+                ByteBuffer buffer = in.buffer;
+                horses.add(new Horse(name, header.breeds[buffer.getInt()],
+                        header.types[buffer.get()], header.conditions[buffer.get()],
+                        buffer.getInt(), buffer.getDouble(), buffer.getDouble()));
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt snapshot, stable '" + stable.getStableName() + "' has an unknown table index", e);
+        }
+        // The stable is restored as it was saved, even if it is now over capacity
+        stable.restoreHorses(horses);
+        return stable;
+    }
+
+    private static List<String> enumNames(Enum<?>[] constants) {
+        List<String> names = new ArrayList<>(constants.length);
+        for (Enum<?> constant : constants) {
+            names.add(constant.name());
+        }
+        return names;
+    }
+
+    private static byte[] utf8(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for snapshot: " + value.substring(0, 32) + "...");
+        }
+        return bytes;
+    }
+
+    /** Decoded header tables, indexed by the ordinals stored in the file. */
+    static final class Header {
+        final int version;
+        final HorseType[] types;
+        final HorseCondition[] conditions;
+        final String[] breeds;
+
+        private Header(int version, HorseType[] types, HorseCondition[] conditions, String[] breeds) {
+            this.version = version;
+            this.types = types;
+            this.conditions = conditions;
+            this.breeds = breeds;
+        }
+
+        static Header read(Reader in) throws IOException {
+            in.ensure(MAGIC.length + 4);
+            byte[] magic = new byte[MAGIC.length];
+            in.buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a stable snapshot");
+            }
+            int version = Short.toUnsignedInt(in.buffer.getShort());
+            in.buffer.getShort(); // flags, none defined yet
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            String[] typeNames = in.stringTable();
+            HorseType[] types = new HorseType[typeNames.length];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = HorseType.valueOf(typeNames[i]);
+            }
+            String[] conditionNames = in.stringTable();
+            HorseCondition[] conditions = new HorseCondition[conditionNames.length];
+            for (int i = 0; i < conditions.length; i++) {
+                conditions[i] = HorseCondition.valueOf(conditionNames[i]);
+            }
+            return new Header(version, types, conditions, in.stringTable());
+        }
+    }
+
+    /** Buffered channel writer; callers reserve space with ensure before putting. */
+    private static final class Writer {
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /** File offset of the next byte put into the buffer. */
+        long position() throws IOException {
+            return channel.position() + buffer.position();
+        }
+
+        void string(byte[] bytes) {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+
+        void stringTable(List<String> values) throws IOException {
+            ensure(4);
+            buffer.putInt(values.size());
+            for (String value : values) {
+                byte[] bytes = utf8(value);
+                ensure(2 + bytes.length);
+                string(bytes);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reader over either a channel, refilled through the buffer as ensure is
+     * called, or a fully mapped region when the channel is null.
+     */
+    static final class Reader {
+        final FileChannel channel;
+        final ByteBuffer buffer;
+        private final byte[] scratch = new byte[0xFFFF];
+
+        Reader(FileChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+            if (channel != null) {
+                buffer.flip();
+            }
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if (channel == null) {
+                throw new EOFException("Truncated stable snapshot");
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Truncated stable snapshot");
+                }
+            }
+            buffer.flip();
+        }
+
+        int i32() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        String string() throws IOException {
+            ensure(2);
+            int length = Short.toUnsignedInt(buffer.getShort());
+            ensure(length);
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        long i64() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        String[] stringTable() throws IOException {
+            String[] values = new String[i32()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = string();
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package springboot.config;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import util.ConnectionPoolMetrics;
+import util.DataSourceProvider;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uses the shared pool from {@link DataSourceProvider} as the application's
+ * DataSource (Spring Boot's own datasource auto-configuration backs off) and
+ * publishes the pool metrics to Micrometer.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    // HibernateUtil runs on Spring's SessionFactory under Boot (PersistenceConfig),
+    // so the pool is only used by this context and closes with it
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource() {
+        return DataSourceProvider.getDataSource();
+    }
+
+    @Bean
+    public MeterBinder connectionPoolMeters() {
+        return registry -> {
+            ConnectionPoolMetrics metrics = DataSourceProvider.getMetrics();
+            Gauge.builder("stable.db.pool.active", metrics, ConnectionPoolMetrics::getActive)
+                    .description("Connections in use").register(registry);
+            Gauge.builder("stable.db.pool.idle", metrics, ConnectionPoolMetrics::getIdle)
+                    .description("Idle connections").register(registry);
+            Gauge.builder("stable.db.pool.pending", metrics, ConnectionPoolMetrics::getPending)
+                    .description("Threads waiting for a connection").register(registry);
+            FunctionTimer.builder("stable.db.pool.wait", metrics,
+                            ConnectionPoolMetrics::getAcquisitions, ConnectionPoolMetrics::getTotalWaitNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Time spent waiting for a connection").register(registry);
+            Gauge.builder("stable.db.pool.wait.max", metrics, m -> m.getMaxWaitNanos() / 1_000_000.0)
+                    .baseUnit("milliseconds").register(registry);
+            Gauge.builder("stable.db.pool.timeouts", metrics, ConnectionPoolMetrics::getTimeouts)
+                    .description("Connection requests that timed out").register(registry);
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package springboot.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import util.HibernateStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/hibernate}: totals, per-query timings (most expensive
+ * first, flagged when slower than the slow-query threshold), entity and
+ * collection load/fetch counts. {@code DELETE} resets the counters.
+ */
+@Endpoint(id = "hibernate")
+public class HibernateEndpoint {
+    private final HibernateStatistics statistics;
+
+    public HibernateEndpoint(HibernateStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("summary", statistics.summary());
+        result.put("slowQueryThresholdMillis", statistics.getSlowQueryThresholdMillis());
+        result.put("secondLevelCacheHitRatio", statistics.getSecondLevelCacheHitRatio());
+        result.put("queries", statistics.getQueries());
+        result.put("entities", statistics.getEntities());
+        result.put("collections", statistics.getCollections());
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+    }
+}
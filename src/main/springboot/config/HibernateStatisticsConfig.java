@@ -0,0 +1,52 @@
+package springboot.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import util.HibernateStatistics;
+import util.HibernateUtil;
+
+/**
+ * Hibernate statistics of the DAO SessionFactory as Micrometer meters
+ * (stable.hibernate.*) and, per query, through {@link HibernateEndpoint}.
+ */
+@Configuration
+public class HibernateStatisticsConfig {
+
+    @Bean
+    public HibernateStatistics hibernateStatistics(@Value("${stable.db.slow-query-ms:200}") long slowQueryMs) {
+        return new HibernateStatistics(HibernateUtil::getSessionFactory, slowQueryMs);
+    }
+
+    @Bean
+    public HibernateEndpoint hibernateEndpoint(HibernateStatistics statistics) {
+        return new HibernateEndpoint(statistics);
+    }
+
+    @Bean
+    public MeterBinder hibernateStatisticsMeters(HibernateStatistics statistics) {
+        return registry -> {
+            FunctionCounter.builder("stable.hibernate.queries", statistics, HibernateStatistics::getQueryExecutionCount)
+                    .description("HQL and criteria queries executed").register(registry);
+            Gauge.builder("stable.hibernate.queries.max", statistics, HibernateStatistics::getQueryExecutionMaxTimeMillis)
+                    .baseUnit("milliseconds").description("Slowest query execution").register(registry);
+            FunctionCounter.builder("stable.hibernate.statements", statistics, HibernateStatistics::getPrepareStatementCount)
+                    .description("JDBC statements prepared").register(registry);
+            FunctionCounter.builder("stable.hibernate.entities.loads", statistics, HibernateStatistics::getEntityLoadCount)
+                    .register(registry);
+            FunctionCounter.builder("stable.hibernate.entities.fetches", statistics, HibernateStatistics::getEntityFetchCount)
+                    .description("Separate selects for associations and proxies").register(registry);
+            FunctionCounter.builder("stable.hibernate.collections.loads", statistics, HibernateStatistics::getCollectionLoadCount)
+                    .register(registry);
+            FunctionCounter.builder("stable.hibernate.collections.fetches", statistics, HibernateStatistics::getCollectionFetchCount)
+                    .description("Lazy collection initializations, one select each").register(registry);
+            FunctionCounter.builder("stable.hibernate.cache.hits", statistics, HibernateStatistics::getSecondLevelCacheHitCount)
+                    .register(registry);
+            FunctionCounter.builder("stable.hibernate.cache.misses", statistics, HibernateStatistics::getSecondLevelCacheMissCount)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package springboot.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests currently being handled, per route template and method, as the
+ * gauge stable.api.in_flight. Latency histograms come from Spring Boot's own
+ * http.server.requests timer.
+ */
+public class InFlightRequestInterceptor implements HandlerInterceptor {
+    private static final String COUNTER_ATTRIBUTE = InFlightRequestInterceptor.class.getName() + ".counter";
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public InFlightRequestInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        AtomicInteger counter = inFlight.computeIfAbsent(method + " " + uri, key -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder("stable.api.in_flight", value, AtomicInteger::get)
+                    .description("Requests being handled")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(registry);
+            return value;
+        });
+        counter.incrementAndGet();
+        request.setAttribute(COUNTER_ATTRIBUTE, counter);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object counter = request.getAttribute(COUNTER_ATTRIBUTE);
+        if (counter instanceof AtomicInteger) {
+            ((AtomicInteger) counter).decrementAndGet();
+            request.removeAttribute(COUNTER_ATTRIBUTE);
+        }
+    }
+}
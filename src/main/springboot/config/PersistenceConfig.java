@@ -0,0 +1,47 @@
+package springboot.config;
+
+import dao.HorseDAO;
+import dao.HorseDAOImpl;
+import dao.RatingDAO;
+import dao.RatingDAOImpl;
+import dao.StableDAO;
+import dao.StableDAOImpl;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import util.HibernateUtil;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Runs the DAO layer on Spring's EntityManagerFactory. The native SessionFactory
+ * behind it is registered with {@link HibernateUtil}, so BaseDAO, UnitOfWork and
+ * the import/export services use the same metamodel, second-level cache and pool
+ * as Spring Data instead of building their own from hibernate.cfg.xml.
+ */
+@Configuration
+public class PersistenceConfig {
+
+    public PersistenceConfig(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        // Registered before any DAO bean exists, the first DAO call would
+        // otherwise build a second SessionFactory. Slice tests without JPA
+        // have no EntityManagerFactory and never reach the database.
+        entityManagerFactory.ifAvailable(emf -> HibernateUtil.register(emf.unwrap(SessionFactory.class)));
+    }
+
+    @Bean
+    public StableDAO stableDAO() {
+        return new StableDAOImpl();
+    }
+
+    @Bean
+    public HorseDAO horseDAO() {
+        return new HorseDAOImpl();
+    }
+
+    @Bean
+    public RatingDAO ratingDAO() {
+        return new RatingDAOImpl();
+    }
+}
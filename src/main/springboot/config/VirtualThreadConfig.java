@@ -0,0 +1,44 @@
+package springboot.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in ({@code stable.web.virtual-threads=true}): Tomcat hands every request
+ * to a new virtual thread instead of its bounded worker pool, so a request
+ * blocked on JDBC no longer holds a platform thread. Concurrency against the
+ * database is then bounded by the Hikari pool size only.
+ */
+@Configuration
+@ConditionalOnProperty(name = "stable.web.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService requestExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler(ExecutorService requestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    // The project compiles for Java 17, the factory only exists from Java 21 on
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("stable.web.virtual-threads=true requires Java 21 or newer, running on "
+                    + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package springboot.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers {@link InFlightRequestInterceptor} for the REST API. Percentiles
+ * and histogram buckets of http.server.requests are set in
+ * application.properties, everything is scraped from /actuator/prometheus.
+ */
+@Configuration
+public class WebMetricsConfig implements WebMvcConfigurer {
+    private final MeterRegistry meterRegistry;
+
+    public WebMetricsConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new InFlightRequestInterceptor(meterRegistry)).addPathPatterns("/api/**");
+    }
+}
@@ -1,67 +1,112 @@
 package springboot.controller;
 
 import exceptions.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
 import springboot.dto.ErrorResponse;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+
+    // Slice tests run without the actuator's registry, errors are then counted in the global one
+    public GlobalExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
 
     @ExceptionHandler(HorseNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleHorseNotFoundException(HorseNotFoundException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND.value());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        return respond(ex, HttpStatus.NOT_FOUND, ex.getMessage());
     }
 
     @ExceptionHandler(StableNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleStableNotFoundException(StableNotFoundException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND.value());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        return respond(ex, HttpStatus.NOT_FOUND, ex.getMessage());
     }
 
     @ExceptionHandler(DuplicateHorseException.class)
     public ResponseEntity<ErrorResponse> handleDuplicateHorseException(DuplicateHorseException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        return respond(ex, HttpStatus.CONFLICT, ex.getMessage());
     }
 
     @ExceptionHandler(DuplicateStableException.class)
     public ResponseEntity<ErrorResponse> handleDuplicateStableException(DuplicateStableException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        return respond(ex, HttpStatus.CONFLICT, ex.getMessage());
     }
 
     @ExceptionHandler(StableCapacityException.class)
     public ResponseEntity<ErrorResponse> handleStableCapacityException(StableCapacityException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        return respond(ex, HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
     @ExceptionHandler(InvalidDataException.class)
     public ResponseEntity<ErrorResponse> handleInvalidDataException(InvalidDataException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        return respond(ex, HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionQueueFullException(IngestionQueueFullException ex) {
+        count(ex, HttpStatus.TOO_MANY_REQUESTS);
+        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS.value());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").body(error);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        return respond(ex, HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        return respond(ex, HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
-        ErrorResponse error = new ErrorResponse("An unexpected error occurred: " + ex.getMessage(), 
-                                                HttpStatus.INTERNAL_SERVER_ERROR.value());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        return respond(ex, HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred: " + ex.getMessage());
+    }
+
+    private ResponseEntity<ErrorResponse> respond(Exception ex, HttpStatus status, String message) {
+        count(ex, status);
+        return ResponseEntity.status(status).body(new ErrorResponse(message, status.value()));
+    }
+
+    // stable.api.errors{exception, status, uri}, uri is the route template such as /api/stable/{id}
+    private void count(Exception ex, HttpStatus status) {
+        String uri = "UNKNOWN";
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            if (pattern != null) {
+                uri = pattern.toString();
+            }
+        }
+        Counter.builder("stable.api.errors")
+                .description("Requests answered with an error by GlobalExceptionHandler")
+                .tag("exception", rootCause(ex).getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // Controllers rethrow checked exceptions wrapped in a RuntimeException, the
+    // tag names the exception that was thrown first
+    private static Throwable rootCause(Throwable ex) {
+        Throwable root = ex;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
     }
 }
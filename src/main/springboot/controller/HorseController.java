@@ -1,6 +1,7 @@
 package springboot.controller;
 
 import exceptions.HorseNotFoundException;
+import exceptions.IngestionQueueFullException;
 import model.Horse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -8,8 +9,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import springboot.dto.HorseRequest;
 import springboot.dto.HorseResponse;
+import springboot.dto.HorseSearchRequest;
+import springboot.dto.PageResponse;
 import springboot.dto.RatingRequest;
 import springboot.service.HorseService;
+import springboot.service.RatingIngestionService;
 import springboot.service.RatingService;
 
 import java.util.HashMap;
@@ -26,6 +30,18 @@ public class HorseController {
     @Autowired
     private RatingService ratingService;
 
+    @Autowired
+    private RatingIngestionService ratingIngestionService;
+
+    /**
+     * GET /api/horse?stable=&condition=&type=&breed=&q=&minPrice=&maxPrice=&minAge=&maxAge=&sort=&order=&limit=&after=
+     * - Get one keyset page of the matching horses, ordered by id unless sort is given
+     */
+    @GetMapping
+    public ResponseEntity<PageResponse<HorseResponse>> getHorses(HorseSearchRequest search) {
+        return ResponseEntity.ok(horseService.getHorsesPage(search));
+    }
+
     /**
      * POST /api/horse - Add horse to stable
      */
@@ -35,7 +51,7 @@ public class HorseController {
             HorseResponse response = horseService.addHorse(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -50,7 +66,7 @@ public class HorseController {
             response.put("message", "Horse deleted successfully");
             return ResponseEntity.ok(response);
         } catch (HorseNotFoundException e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -66,7 +82,7 @@ public class HorseController {
             response.put("averageRating", averageRating);
             return ResponseEntity.ok(response);
         } catch (HorseNotFoundException e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -81,7 +97,30 @@ public class HorseController {
             response.put("message", "Rating added successfully");
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
+
+    /**
+     * POST /api/horse/rating/stats/rebuild - Recompute rating stats from all ratings
+     */
+    @PostMapping("/rating/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRatingStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("horses", ratingService.rebuildRatingStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /api/horse/rating/async - Queue rating for batched write, 429 when the queue is full
+     */
+    @PostMapping("/rating/async")
+    public ResponseEntity<Map<String, Object>> addRatingAsync(@RequestBody RatingRequest request)
+            throws HorseNotFoundException, IngestionQueueFullException {
+        ratingIngestionService.submit(request);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Rating accepted");
+        response.put("pending", ratingIngestionService.getPendingCount());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
 }
@@ -1,5 +1,6 @@
 package springboot.controller;
 
+import exceptions.InvalidDataException;
 import exceptions.StableNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -7,7 +8,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import springboot.dto.ConditionChangeRequest;
 import springboot.dto.HorseResponse;
+import springboot.dto.PageResponse;
 import springboot.dto.StableRequest;
 import springboot.dto.StableResponse;
 import springboot.service.HorseService;
@@ -36,6 +39,15 @@ public class StableController {
         return ResponseEntity.ok(stables);
     }
 
+    /**
+     * GET /api/stable?limit=&after= - Get one keyset page of stables ordered by id
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<PageResponse<StableResponse>> getStablesPage(@RequestParam int limit,
+                                                                       @RequestParam(required = false) Long after) {
+        return ResponseEntity.ok(stableService.getStablesPage(after, limit));
+    }
+
     /**
      * GET /api/stable/:id - Get all horses in a stable
      */
@@ -47,7 +59,7 @@ public class StableController {
             List<HorseResponse> horses = horseService.getHorsesByStableId(id);
             return ResponseEntity.ok(horses);
         } catch (StableNotFoundException e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -63,7 +75,7 @@ public class StableController {
             headers.setContentDispositionFormData("attachment", "stable_" + id + "_horses.csv");
             return ResponseEntity.ok().headers(headers).body(csv);
         } catch (StableNotFoundException e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -76,7 +88,7 @@ public class StableController {
             StableResponse response = stableService.addStable(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -91,10 +103,25 @@ public class StableController {
             response.put("message", "Stable deleted successfully");
             return ResponseEntity.ok(response);
         } catch (StableNotFoundException e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
+    /**
+     * PATCH /api/stable/:id/condition - Set the condition of all matching horses in a stable at once
+     */
+    @PatchMapping("/{id}/condition")
+    public ResponseEntity<Map<String, Object>> changeHorseConditions(@PathVariable Long id,
+                                                                     @RequestBody ConditionChangeRequest request)
+            throws StableNotFoundException, InvalidDataException {
+        int affected = stableService.changeHorseConditions(id, request);
+        Map<String, Object> response = new HashMap<>();
+        response.put("stableId", id);
+        response.put("condition", request.getCondition());
+        response.put("affected", affected);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * GET /api/stable/:id/fill - Get stable occupancy percentage
      */
@@ -113,7 +140,7 @@ public class StableController {
             
             return ResponseEntity.ok(response);
         } catch (StableNotFoundException e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 }
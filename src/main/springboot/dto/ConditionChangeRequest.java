@@ -0,0 +1,41 @@
+package springboot.dto;
+
+import model.HorseCondition;
+import model.HorseType;
+
+/**
+ * New condition for the horses of a stable, optionally narrowed down by breed,
+ * type, current condition and age range.
+ */
+public class ConditionChangeRequest {
+    private HorseCondition condition;
+    private String breed;
+    private HorseType type;
+    private HorseCondition currentCondition;
+    private Integer minAge;
+    private Integer maxAge;
+
+    public ConditionChangeRequest() {}
+
+    public ConditionChangeRequest(HorseCondition condition) {
+        this.condition = condition;
+    }
+
+    public HorseCondition getCondition() { return condition; }
+    public void setCondition(HorseCondition condition) { this.condition = condition; }
+
+    public String getBreed() { return breed; }
+    public void setBreed(String breed) { this.breed = breed; }
+
+    public HorseType getType() { return type; }
+    public void setType(HorseType type) { this.type = type; }
+
+    public HorseCondition getCurrentCondition() { return currentCondition; }
+    public void setCurrentCondition(HorseCondition currentCondition) { this.currentCondition = currentCondition; }
+
+    public Integer getMinAge() { return minAge; }
+    public void setMinAge(Integer minAge) { this.minAge = minAge; }
+
+    public Integer getMaxAge() { return maxAge; }
+    public void setMaxAge(Integer maxAge) { this.maxAge = maxAge; }
+}
@@ -0,0 +1,67 @@
+package springboot.dto;
+
+/**
+ * Query parameters of {@code GET /api/horse}. Every criterion is optional;
+ * enum values and the sort order are matched ignoring case.
+ */
+public class HorseSearchRequest {
+    private Long stable;
+    private String condition;
+    private String type;
+    private String breed;
+    private String q;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minAge;
+    private Integer maxAge;
+    private String sort;
+    private String order;
+    private int limit = PageResponse.DEFAULT_LIMIT;
+    private Long after;
+
+    public HorseSearchRequest() {}
+
+    /** Stable id */
+    public Long getStable() { return stable; }
+    public void setStable(Long stable) { this.stable = stable; }
+
+    public String getCondition() { return condition; }
+    public void setCondition(String condition) { this.condition = condition; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getBreed() { return breed; }
+    public void setBreed(String breed) { this.breed = breed; }
+
+    /** Text contained in the name or breed */
+    public String getQ() { return q; }
+    public void setQ(String q) { this.q = q; }
+
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+
+    public Double getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+
+    public Integer getMinAge() { return minAge; }
+    public void setMinAge(Integer minAge) { this.minAge = minAge; }
+
+    public Integer getMaxAge() { return maxAge; }
+    public void setMaxAge(Integer maxAge) { this.maxAge = maxAge; }
+
+    /** id (default), name, price, age or weight */
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+
+    /** asc (default) or desc */
+    public String getOrder() { return order; }
+    public void setOrder(String order) { this.order = order; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    /** Cursor: the nextCursor of the previous page */
+    public Long getAfter() { return after; }
+    public void setAfter(Long after) { this.after = after; }
+}
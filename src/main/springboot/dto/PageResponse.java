@@ -0,0 +1,52 @@
+package springboot.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is the id to pass
+ * as {@code after} for the following page, or null on the last page.
+ */
+public class PageResponse<T> {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private List<T> items;
+    private int limit;
+    private Long nextCursor;
+
+    public PageResponse() {}
+
+    public PageResponse(List<T> items, int limit, Long nextCursor) {
+        this.items = items;
+        this.limit = limit;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from a DAO result fetched with {@code limit + 1} rows: the
+     * extra row only tells whether another page exists and is not returned.
+     */
+    public static <E, T> PageResponse<T> of(List<E> rows, int limit, Function<E, Long> idOf, Function<E, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> page = hasMore ? rows.subList(0, limit) : rows;
+        Long nextCursor = hasMore ? idOf.apply(page.get(page.size() - 1)) : null;
+        return new PageResponse<>(page.stream().map(mapper).collect(Collectors.toList()), limit, nextCursor);
+    }
+
+    public static void validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public Long getNextCursor() { return nextCursor; }
+    public void setNextCursor(Long nextCursor) { this.nextCursor = nextCursor; }
+}
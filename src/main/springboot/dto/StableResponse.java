@@ -14,7 +14,7 @@ public class StableResponse {
         this.id = stable.getId();
         this.stableName = stable.getStableName();
         this.maxCapacity = stable.getMaxCapacity();
-        this.currentOccupancy = stable.getHorseList().size();
+        this.currentOccupancy = stable.getCurrentLoad();
     }
 
     public Long getId() { return id; }
@@ -1,17 +1,25 @@
 package springboot.service;
 
 import dao.HorseDAO;
-import dao.HorseDAOImpl;
+import dao.HorseFilter;
+import dao.HorseQuery;
 import dao.StableDAO;
-import dao.StableDAOImpl;
+import dao.UnitOfWork;
 import exceptions.*;
 import model.Horse;
+import model.HorseCondition;
+import model.HorseType;
 import model.Stable;
 import org.springframework.stereotype.Service;
+import service.CapacityAdmission;
 import springboot.dto.HorseRequest;
 import springboot.dto.HorseResponse;
+import springboot.dto.HorseSearchRequest;
+import springboot.dto.PageResponse;
+import util.SecondLevelCache;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,48 +27,61 @@ public class HorseService {
     
     private final HorseDAO horseDAO;
     private final StableDAO stableDAO;
+    private final CapacityAdmission admission = CapacityAdmission.getInstance();
 
-    public HorseService() {
-        this.horseDAO = new HorseDAOImpl();
-        this.stableDAO = new StableDAOImpl();
+    public HorseService(HorseDAO horseDAO, StableDAO stableDAO) {
+        this.horseDAO = horseDAO;
+        this.stableDAO = stableDAO;
     }
 
     public HorseResponse addHorse(HorseRequest request) throws StableNotFoundException, StableCapacityException, DuplicateHorseException {
-        Stable stable = stableDAO.findById(request.getStableId());
-        if (stable == null) {
-            throw new StableNotFoundException("Stable with id " + request.getStableId() + " not found");
-        }
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            Stable stable = stableDAO.findById(request.getStableId());
+            if (stable == null) {
+                throw new StableNotFoundException("Stable with id " + request.getStableId() + " not found");
+            }
 
-        Horse horse = new Horse(
-            request.getName(),
-            request.getBreed(),
-            request.getType(),
-            request.getCondition(),
-            request.getAge(),
-            request.getPrice(),
-            request.getWeightKg()
-        );
+            Horse horse = new Horse(
+                request.getName(),
+                request.getBreed(),
+                request.getType(),
+                request.getCondition(),
+                request.getAge(),
+                request.getPrice(),
+                request.getWeightKg()
+            );
 
-        stable.addHorse(horse);
-        stableDAO.update(stable);
-        horseDAO.save(horse);
+            // Holds the place until the transaction has ended, see CapacityAdmission
+            CapacityAdmission.Ticket ticket = admission.admit(stable, () -> horseDAO.countByStableId(stable.getId()));
+            unitOfWork.afterCompletion(ticket::close);
+            stable.addHorse(horse);
+            horseDAO.save(horse);
+            unitOfWork.commit();
 
-        return new HorseResponse(horse);
+            return new HorseResponse(horse);
+        }
     }
 
     public void deleteHorse(Long id) throws HorseNotFoundException {
-        Horse horse = horseDAO.findById(id);
-        if (horse == null) {
-            throw new HorseNotFoundException("Horse with id " + id + " not found");
-        }
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            Horse horse = horseDAO.findById(id);
+            if (horse == null) {
+                throw new HorseNotFoundException("Horse with id " + id + " not found");
+            }
 
-        Stable stable = horse.getStable();
-        if (stable != null) {
-            stable.removeHorse(horse);
-            stableDAO.update(stable);
-        }
+            // The stable is a lazy proxy, it can only be initialized inside the unit of work
+            Stable stable = horse.getStable();
+            if (stable != null) {
+                // removeHorse unlinks the horse, so the DAO no longer sees which
+                // stable's cached occupancy to drop
+                Long stableId = stable.getId();
+                unitOfWork.afterCompletion(() -> SecondLevelCache.evictStable(stableId));
+                stable.removeHorse(horse);
+            }
 
-        horseDAO.delete(horse);
+            horseDAO.delete(horse);
+            unitOfWork.commit();
+        }
     }
 
     public HorseResponse getHorseById(Long id) throws HorseNotFoundException {
@@ -77,6 +98,54 @@ public class HorseService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * One keyset page of the horses matching the search, filtered, sorted and
+     * limited by a single database query.
+     */
+    public PageResponse<HorseResponse> getHorsesPage(HorseSearchRequest search) {
+        int limit = search.getLimit();
+        PageResponse.validateLimit(limit);
+        HorseFilter filter = HorseFilter.all()
+            .stableId(search.getStable())
+            .condition(parse(HorseCondition.class, "condition", search.getCondition()))
+            .type(parse(HorseType.class, "type", search.getType()))
+            .breed(blankToNull(search.getBreed()))
+            .text(blankToNull(search.getQ()))
+            .prices(search.getMinPrice(), search.getMaxPrice())
+            .ages(search.getMinAge(), search.getMaxAge());
+        HorseQuery query = HorseQuery.where(filter)
+            .sortBy(HorseQuery.Sort.parse(search.getSort()))
+            .descending(isDescending(search.getOrder()))
+            .after(search.getAfter())
+            .limit(limit + 1);
+        return PageResponse.of(horseDAO.find(query), limit, Horse::getId, HorseResponse::new);
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String parameter, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + parameter + " '" + value + "'");
+        }
+    }
+
+    private static boolean isDescending(String order) {
+        if (order == null || order.isBlank() || order.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (order.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Order must be asc or desc");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
     public List<HorseResponse> getHorsesByStableId(Long stableId) {
         return horseDAO.findByStableId(stableId).stream()
             .map(HorseResponse::new)
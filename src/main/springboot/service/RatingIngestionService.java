@@ -0,0 +1,173 @@
+package springboot.service;
+
+import dao.RatingDAO;
+import exceptions.HorseNotFoundException;
+import exceptions.IngestionQueueFullException;
+import model.Rating;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import springboot.dto.RatingRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind path for ratings. Requests are validated on the caller's thread,
+ * queued, and written by a single background thread in batches of up to
+ * {@code batchSize}, one transaction per batch. A batch is written once it is
+ * full or {@code lingerMs} after its first rating arrived, whichever is first.
+ */
+@Service
+public class RatingIngestionService {
+    private static final long IDLE_POLL_MS = 100;
+
+    private final RatingService ratingService;
+    private final RatingDAO ratingDAO;
+    private final BlockingQueue<Rating> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Submits hold the read lock from the running check to the offer, shutdown
+    // takes the write lock, so no rating is queued after shutdown has begun
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public RatingIngestionService(RatingService ratingService, RatingDAO ratingDAO,
+                                  @Value("${ratings.ingest.capacity:10000}") int capacity,
+                                  @Value("${ratings.ingest.batch-size:200}") int batchSize,
+                                  @Value("${ratings.ingest.linger-ms:50}") long lingerMs) {
+        if (capacity < 1 || batchSize < 1 || lingerMs < 0) {
+            throw new IllegalArgumentException("Invalid rating ingestion settings");
+        }
+        this.ratingService = ratingService;
+        this.ratingDAO = ratingDAO;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::runWriter, "rating-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Validates and queues a rating. Never blocks: a full queue is reported to
+     * the caller so it can back off.
+     */
+    public void submit(RatingRequest request) throws HorseNotFoundException, IngestionQueueFullException {
+        acceptLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Rating ingestion is shut down");
+            }
+            Rating rating = ratingService.toRating(request);
+            if (!queue.offer(rating)) {
+                throw new IngestionQueueFullException(capacity);
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    public int getPendingCount() { return queue.size(); }
+    public long getWrittenCount() { return written.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+
+    /**
+     * Stops accepting ratings and writes everything still queued. Waits for
+     * submits already past the running check, then for the writer to drain
+     * the queue and exit.
+     */
+    @PreDestroy
+    public void shutdown() {
+        acceptLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                // Accepted ratings must still be written, finish waiting first
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        // Only left behind if the writer died, it is not running any more
+        List<Rating> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += batchSize) {
+            flush(rest.subList(from, Math.min(rest.size(), from + batchSize)));
+        }
+    }
+
+    private void runWriter() {
+        List<Rating> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                Rating first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!running) return;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) continue;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) break;
+                    Rating next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Only shutdown interrupts; write what we have and keep draining
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Rating> batch) {
+        try {
+            ratingDAO.saveAll(batch);
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // Retry one by one so a single bad rating does not lose the whole batch
+            for (Rating rating : batch) {
+                try {
+                    ratingDAO.save(rating);
+                    written.incrementAndGet();
+                } catch (RuntimeException single) {
+                    dropped.incrementAndGet();
+                    System.err.println("Dropping rating for horse " + rating.getHorse().getId() + ": " + single.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,15 @@
 package springboot.service;
 
 import dao.HorseDAO;
-import dao.HorseDAOImpl;
 import dao.RatingDAO;
-import dao.RatingDAOImpl;
 import exceptions.HorseNotFoundException;
 import model.Horse;
+import model.HorseRatingStats;
 import model.Rating;
 import org.springframework.stereotype.Service;
 import springboot.dto.RatingRequest;
 
 import java.util.Date;
-import java.util.List;
 
 @Service
 public class RatingService {
@@ -19,12 +17,19 @@ public class RatingService {
     private final RatingDAO ratingDAO;
     private final HorseDAO horseDAO;
 
-    public RatingService() {
-        this.ratingDAO = new RatingDAOImpl();
-        this.horseDAO = new HorseDAOImpl();
+    public RatingService(RatingDAO ratingDAO, HorseDAO horseDAO) {
+        this.ratingDAO = ratingDAO;
+        this.horseDAO = horseDAO;
     }
 
     public void addRating(RatingRequest request) throws HorseNotFoundException {
+        ratingDAO.save(toRating(request));
+    }
+
+    /**
+     * Validates the request and builds the rating without saving it.
+     */
+    Rating toRating(RatingRequest request) throws HorseNotFoundException {
         Horse horse = horseDAO.findById(request.getHorseId());
         if (horse == null) {
             throw new HorseNotFoundException("Horse with id " + request.getHorseId() + " not found");
@@ -34,14 +39,12 @@ public class RatingService {
             throw new IllegalArgumentException("Rating value must be between 0 and 5");
         }
 
-        Rating rating = new Rating(
+        return new Rating(
             request.getRatingValue(),
             horse,
             new Date(),
             request.getDescription() != null ? request.getDescription() : ""
         );
-
-        ratingDAO.save(rating);
     }
 
     public Double getAverageRating(Long horseId) throws HorseNotFoundException {
@@ -50,15 +53,14 @@ public class RatingService {
             throw new HorseNotFoundException("Horse with id " + horseId + " not found");
         }
 
-        List<Rating> ratings = ratingDAO.findByHorseId(horseId);
-        if (ratings.isEmpty()) {
-            return 0.0;
-        }
-
-        double sum = ratings.stream()
-            .mapToInt(Rating::getRatingValue)
-            .sum();
+        HorseRatingStats stats = ratingDAO.findStats(horseId);
+        return stats != null ? stats.getAverage() : 0.0;
+    }
 
-        return sum / ratings.size();
+    /**
+     * Recomputes the per-horse rating stats from scratch.
+     */
+    public int rebuildRatingStats() {
+        return ratingDAO.rebuildStats();
     }
 }
@@ -1,12 +1,15 @@
 package springboot.service;
 
+import dao.HorseDAO;
+import dao.HorseFilter;
 import dao.StableDAO;
-import dao.StableDAOImpl;
 import exceptions.*;
 import model.Horse;
 import model.Stable;
 import org.springframework.stereotype.Service;
 import service.CSVService;
+import springboot.dto.ConditionChangeRequest;
+import springboot.dto.PageResponse;
 import springboot.dto.StableRequest;
 import springboot.dto.StableResponse;
 
@@ -17,10 +20,12 @@ import java.util.stream.Collectors;
 public class StableService {
     
     private final StableDAO stableDAO;
+    private final HorseDAO horseDAO;
     private final CSVService csvService;
 
-    public StableService() {
-        this.stableDAO = new StableDAOImpl();
+    public StableService(StableDAO stableDAO, HorseDAO horseDAO) {
+        this.stableDAO = stableDAO;
+        this.horseDAO = horseDAO;
         this.csvService = new CSVService();
     }
 
@@ -53,7 +58,7 @@ public class StableService {
     }
 
     public StableResponse getStableById(Long id) throws StableNotFoundException {
-        Stable stable = stableDAO.findById(id);
+        Stable stable = stableDAO.findByIdWithoutHorses(id);
         if (stable == null) {
             throw new StableNotFoundException("Stable with id " + id + " not found");
         }
@@ -66,13 +71,39 @@ public class StableService {
             .collect(Collectors.toList());
     }
 
+    public PageResponse<StableResponse> getStablesPage(Long after, int limit) {
+        PageResponse.validateLimit(limit);
+        return PageResponse.of(stableDAO.findPage(after, limit + 1), limit, Stable::getId, StableResponse::new);
+    }
+
+    /**
+     * Sets the condition of all matching horses in the stable with one bulk
+     * update and returns how many changed.
+     */
+    public int changeHorseConditions(Long id, ConditionChangeRequest request)
+            throws StableNotFoundException, InvalidDataException {
+        if (request.getCondition() == null) {
+            throw new InvalidDataException("Condition cannot be empty");
+        }
+        if (!stableDAO.existsById(id)) {
+            throw new StableNotFoundException("Stable with id " + id + " not found");
+        }
+        HorseFilter filter = HorseFilter.all()
+            .stableId(id)
+            .breed(request.getBreed())
+            .type(request.getType())
+            .condition(request.getCurrentCondition())
+            .ages(request.getMinAge(), request.getMaxAge());
+        return horseDAO.updateConditionWhere(filter, request.getCondition());
+    }
+
     public double getStableFillPercentage(Long id) throws StableNotFoundException {
-        Stable stable = stableDAO.findById(id);
+        Stable stable = stableDAO.findByIdWithoutHorses(id);
         if (stable == null) {
             throw new StableNotFoundException("Stable with id " + id + " not found");
         }
 
-        int currentOccupancy = stable.getHorseList().size();
+        int currentOccupancy = stable.getCurrentLoad();
         int maxCapacity = stable.getMaxCapacity();
 
         return maxCapacity > 0 ? (currentOccupancy * 100.0) / maxCapacity : 0.0;
@@ -2,18 +2,24 @@ package ui;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
+import javafx.stage.Modality;
 import javafx.stage.Stage;
 import exceptions.StableException;
+import facade.RestoreReport;
 import facade.StableFacade;
 import model.*;
 import service.CSVService;
+import service.ImportReport;
 import service.SerializationService;
+import service.SnapshotReader;
+import service.StableSnapshotCodec;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -26,6 +32,9 @@ import java.util.Optional;
  * Admin view with full CRUD capabilities
  */
 public class AdminView {
+    // Import and restore problems listed in an alert, the rest are only counted
+    private static final int MAX_LISTED_FAILURES = 20;
+
     private final Stage stage;
     private final StableFacade facade;
     private final SerializationService serializationService;
@@ -114,7 +123,7 @@ public class AdminView {
         loadCol.setCellValueFactory(cellData -> {
             Stable stable = cellData.getValue();
             String loadStr = String.format("%d/%d (%.1f%%)", 
-                stable.getHorseList().size(), 
+                stable.getCurrentLoad(), 
                 stable.getMaxCapacity(),
                 stable.occupancyPercent());
             return new javafx.beans.property.SimpleStringProperty(loadStr);
@@ -229,7 +238,11 @@ public class AdminView {
     private void loadHorses() {
         horseData.clear();
         if (selectedStable != null) {
-            horseData.addAll(selectedStable.getHorseList());
+            try {
+                horseData.addAll(facade.getHorsesInStable(selectedStable.getStableName()));
+            } catch (StableException e) {
+                showError(e.getMessage());
+            }
         }
     }
     
@@ -470,7 +483,7 @@ public class AdminView {
         if (selectedStable == null) return;
         
         try {
-            List<Horse> horses = selectedStable.getHorseList();
+            List<Horse> horses = facade.getHorsesInStable(selectedStable.getStableName());
             
             // Apply search filter
             if (searchText != null && !searchText.isEmpty()) {
@@ -557,16 +570,19 @@ public class AdminView {
         File file = fileChooser.showSaveDialog(stage);
         if (file != null) {
             try {
-                serializationService.saveStable(selected, file.getAbsolutePath());
+                // Reload with its horses, table rows only carry the occupancy count
+                Stable stable = facade.getStable(selected.getStableName());
+                serializationService.saveStable(stable, file.getAbsolutePath());
                 showInfo("Success", "Stable saved to: " + file.getName());
-            } catch (IOException e) {
+            } catch (IOException | StableException e) {
                 showError("Save failed: " + e.getMessage());
             }
         }
     }
     
     /**
-     * Load a stable from a binary file.
+     * Load a stable from a binary file. Snapshots holding several stables are
+     * opened through their index, so only the chosen stable is read.
      * Note: Due to facade limitations, only stable metadata (name and capacity) is restored.
      * The horses that were part of the stable are not restored to the database.
      * Use CSV import to restore both stables and horses.
@@ -581,7 +597,10 @@ public class AdminView {
         File file = fileChooser.showOpenDialog(stage);
         if (file != null) {
             try {
-                Stable stable = serializationService.loadStable(file.getAbsolutePath());
+                Stable stable = readStableFromFile(file);
+                if (stable == null) {
+                    return;
+                }
                 facade.addStable(stable.getStableName(), stable.getMaxCapacity());
                 loadStables();
                 String message = String.format("Stable loaded from: %s%nNote: Only stable metadata restored. Use CSV import to restore horses.", 
@@ -594,6 +613,52 @@ public class AdminView {
             }
         }
     }
+
+    /**
+     * Reads the stable to load, asking which one when the file holds several.
+     * Returns null if the user cancels.
+     */
+    private Stable readStableFromFile(File file) throws IOException, ClassNotFoundException {
+        if (!StableSnapshotCodec.isSnapshot(file.toPath())) {
+            // Stable written with Java serialization
+            return serializationService.loadStable(file.getAbsolutePath());
+        }
+        try (SnapshotReader reader = SnapshotReader.open(file.toPath())) {
+            List<String> names = reader.getStableNames();
+            if (names.isEmpty()) {
+                throw new IOException("Snapshot contains no stables");
+            }
+            String name = names.get(0);
+            if (names.size() > 1) {
+                Optional<String> choice = chooseStableName(names);
+                if (choice.isEmpty()) {
+                    return null;
+                }
+                name = choice.get();
+            }
+            Stable stable = reader.readStable(name);
+            if (stable == null) {
+                throw new IOException("No stable named '" + name + "' in " + file.getName());
+            }
+            return stable;
+        }
+    }
+
+    private Optional<String> chooseStableName(List<String> names) {
+        // A choice box is only usable for a moderate number of stables
+        if (names.size() <= 500) {
+            ChoiceDialog<String> dialog = new ChoiceDialog<>(names.get(0), names);
+            dialog.setTitle("Load Stable (Binary)");
+            dialog.setHeaderText(names.size() + " stables in this file");
+            dialog.setContentText("Stable:");
+            return dialog.showAndWait();
+        }
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Load Stable (Binary)");
+        dialog.setHeaderText(names.size() + " stables in this file");
+        dialog.setContentText("Stable name:");
+        return dialog.showAndWait().map(String::trim);
+    }
     
     private void saveAllStablesBinary() {
         FileChooser fileChooser = new FileChooser();
@@ -606,7 +671,7 @@ public class AdminView {
         File file = fileChooser.showSaveDialog(stage);
         if (file != null) {
             try {
-                List<Stable> allStables = facade.getAllStables();
+                List<Stable> allStables = facade.getAllStablesWithHorses();
                 serializationService.saveStables(allStables, file.getAbsolutePath());
                 showInfo("Success", "All stables saved to: " + file.getName());
             } catch (IOException e) {
@@ -623,47 +688,67 @@ public class AdminView {
         );
         
         File file = fileChooser.showOpenDialog(stage);
-        if (file != null) {
-            try {
-                List<Stable> stables = serializationService.loadStables(file.getAbsolutePath());
-                int successCount = 0;
-                int failCount = 0;
-                StringBuilder errors = new StringBuilder();
-                
-                // Add all stables to database
-                for (Stable stable : stables) {
-                    try {
-                        facade.addStable(stable.getStableName(), stable.getMaxCapacity());
-                        successCount++;
-                    } catch (StableException e) {
-                        failCount++;
-                        errors.append("\n- ").append(stable.getStableName()).append(": ").append(e.getMessage());
-                    }
-                }
-                
-                // Reload UI
-                loadStables();
-                
-                // Show result with details
-                if (failCount > 0) {
-                    String message = String.format("Loaded %d stables, %d failed from: %s%n%s", 
-                                                    successCount, failCount, file.getName(), errors.toString());
-                    Alert alert = new Alert(Alert.AlertType.WARNING);
-                    alert.setTitle("Partial Success");
-                    alert.setHeaderText(null);
-                    alert.setContentText(message);
-                    alert.showAndWait();
-                } else {
-                    showInfo("Success", String.format("Loaded %d stables from: %s", successCount, file.getName()));
-                }
-            } catch (IOException | ClassNotFoundException e) {
-                showError("Load failed: " + e.getMessage());
-            }
+        if (file == null) {
+            return;
         }
+        List<Stable> stables;
+        try {
+            stables = serializationService.loadStables(file.getAbsolutePath());
+        } catch (IOException | ClassNotFoundException e) {
+            showError("Load failed: " + e.getMessage());
+            return;
+        }
+
+        // Restore stables and horses off the FX thread, the bar follows the batches
+        Task<RestoreReport> restore = new Task<>() {
+            @Override
+            protected RestoreReport call() {
+                return facade.restoreStables(stables, (done, total) -> updateProgress(done, total));
+            }
+        };
+        Stage progressStage = progressWindow("Restoring " + stables.size() + " stables...", restore);
+        restore.setOnSucceeded(event -> {
+            progressStage.close();
+            loadStables();
+            RestoreReport report = restore.getValue();
+            if (report.hasProblems()) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Partial Success");
+                alert.setHeaderText(null);
+                alert.setContentText(String.format("From %s:%n%s%n%s", file.getName(), report,
+                        report.problemSummary(MAX_LISTED_FAILURES)));
+                alert.showAndWait();
+            } else {
+                showInfo("Success", String.format("%s from: %s", report, file.getName()));
+            }
+        });
+        restore.setOnFailed(event -> {
+            progressStage.close();
+            loadStables();
+            showError("Load failed: " + restore.getException().getMessage());
+        });
+        progressStage.show();
+        Thread worker = new Thread(restore, "stable-restore");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private Stage progressWindow(String message, Task<?> task) {
+        ProgressBar bar = new ProgressBar();
+        bar.setPrefWidth(300);
+        bar.progressProperty().bind(task.progressProperty());
+        VBox box = new VBox(10, new Label(message), bar);
+        box.setPadding(new Insets(20));
+        Stage progressStage = new Stage();
+        progressStage.initOwner(stage);
+        progressStage.initModality(Modality.WINDOW_MODAL);
+        progressStage.setTitle("Please wait");
+        progressStage.setScene(new Scene(box));
+        progressStage.setOnCloseRequest(event -> event.consume());
+        return progressStage;
     }
     
     // CSV Export/Import Methods
-    
     private void exportStablesToCSV() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Export Stables to CSV");
@@ -720,13 +805,14 @@ public class AdminView {
         File file = fileChooser.showSaveDialog(stage);
         if (file != null) {
             try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+                List<Horse> horses = facade.getHorsesInStable(selected.getStableName());
                 writer.write("Stable Information");
                 writer.newLine();
                 writer.write("Name," + escapeCSV(selected.getStableName()));
                 writer.newLine();
                 writer.write("Capacity," + selected.getMaxCapacity());
                 writer.newLine();
-                writer.write("Current Load," + selected.getHorseList().size());
+                writer.write("Current Load," + horses.size());
                 writer.newLine();
                 writer.newLine();
                 writer.write("Horses in this stable:");
@@ -734,7 +820,7 @@ public class AdminView {
                 writer.write("Name,Breed,Type,Condition,Age,Price,Weight");
                 writer.newLine();
                 
-                for (Horse horse : selected.getHorseList()) {
+                for (Horse horse : horses) {
                     writer.write(String.format("%s,%s,%s,%s,%d,%.2f,%.2f",
                         escapeCSV(horse.getName()),
                         escapeCSV(horse.getBreed()),
@@ -747,7 +833,7 @@ public class AdminView {
                 }
                 
                 showInfo("Success", "Selected stable exported to: " + file.getName());
-            } catch (IOException e) {
+            } catch (IOException | StableException e) {
                 showError("Export failed: " + e.getMessage());
             }
         }
@@ -780,16 +866,43 @@ public class AdminView {
         );
         
         File file = fileChooser.showOpenDialog(stage);
-        if (file != null) {
-            try {
-                csvService.importHorsesFromCSV(file.getAbsolutePath());
-                loadStables();
-                loadHorses();
-                showInfo("Success", "Horses imported from: " + file.getName());
-            } catch (IOException e) {
-                showError("Import failed: " + e.getMessage());
-            }
+        if (file == null) {
+            return;
         }
+
+        // Import off the FX thread, the parsing and batch writes can take a while
+        Task<ImportReport> importTask = new Task<>() {
+            @Override
+            protected ImportReport call() throws IOException {
+                return csvService.importHorsesFromCSVParallel(file.getAbsolutePath());
+            }
+        };
+        Stage progressStage = progressWindow("Importing horses from " + file.getName() + "...", importTask);
+        importTask.setOnSucceeded(event -> {
+            progressStage.close();
+            loadStables();
+            loadHorses();
+            ImportReport report = importTask.getValue();
+            if (report.hasFailures()) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Partial Success");
+                alert.setHeaderText(null);
+                alert.setContentText(String.format("%s%n%s", report, report.failureSummary(MAX_LISTED_FAILURES)));
+                alert.showAndWait();
+            } else {
+                showInfo("Success", String.format("Horses imported from: %s%n%s", file.getName(), report));
+            }
+        });
+        importTask.setOnFailed(event -> {
+            progressStage.close();
+            loadStables();
+            loadHorses();
+            showError("Import failed: " + importTask.getException().getMessage());
+        });
+        progressStage.show();
+        Thread worker = new Thread(importTask, "horse-csv-import");
+        worker.setDaemon(true);
+        worker.start();
     }
     
     // Helper method for CSV escaping
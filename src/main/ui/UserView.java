@@ -96,7 +96,7 @@ public class UserView {
         loadCol.setCellValueFactory(cellData -> {
             Stable stable = cellData.getValue();
             String loadStr = String.format("%d/%d (%.1f%%)", 
-                stable.getHorseList().size(), 
+                stable.getCurrentLoad(), 
                 stable.getMaxCapacity(),
                 stable.occupancyPercent());
             return new javafx.beans.property.SimpleStringProperty(loadStr);
@@ -197,7 +197,11 @@ public class UserView {
     private void loadHorses() {
         horseData.clear();
         if (selectedStable != null) {
-            horseData.addAll(selectedStable.getHorseList());
+            try {
+                horseData.addAll(facade.getHorsesInStable(selectedStable.getStableName()));
+            } catch (StableException e) {
+                showError(e.getMessage());
+            }
         }
     }
     
@@ -230,7 +234,7 @@ public class UserView {
         if (selectedStable == null) return;
         
         try {
-            List<Horse> horses = selectedStable.getHorseList();
+            List<Horse> horses = facade.getHorsesInStable(selectedStable.getStableName());
             
             // Apply search filter
             if (searchText != null && !searchText.isEmpty()) {
@@ -0,0 +1,77 @@
+package util;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool counters fed by HikariCP: current pool state plus how long
+ * callers waited for a connection, how long they held it and how often the
+ * wait timed out. Readable without any metrics library; the Spring side
+ * exports the same values through Micrometer.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, IMetricsTracker {
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder totalUsageMillis = new LongAdder();
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return this;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquisitions.increment();
+        totalWaitNanos.add(elapsedAcquiredNanos);
+        maxWaitNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        releases.increment();
+        totalUsageMillis.add(elapsedBorrowedMillis);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    // Pool state, refreshed by Hikari at most once a second
+    public int getActive() { return poolStats != null ? poolStats.getActiveConnections() : 0; }
+    public int getIdle() { return poolStats != null ? poolStats.getIdleConnections() : 0; }
+    public int getTotal() { return poolStats != null ? poolStats.getTotalConnections() : 0; }
+    public int getPending() { return poolStats != null ? poolStats.getPendingThreads() : 0; }
+
+    public long getAcquisitions() { return acquisitions.sum(); }
+    public long getTotalWaitNanos() { return totalWaitNanos.sum(); }
+    public long getMaxWaitNanos() { return maxWaitNanos.get(); }
+    public long getTimeouts() { return timeouts.sum(); }
+
+    public double getMeanWaitMillis() {
+        long count = getAcquisitions();
+        return count == 0 ? 0.0 : getTotalWaitNanos() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMeanUsageMillis() {
+        long count = releases.sum();
+        return count == 0 ? 0.0 : totalUsageMillis.sum() / (double) count;
+    }
+
+    public String summary() {
+        return String.format("Pool active=%d idle=%d total=%d pending=%d, acquisitions=%d wait mean=%.2fms max=%.2fms, "
+                        + "timeouts=%d, held mean=%.1fms",
+                getActive(), getIdle(), getTotal(), getPending(), getAcquisitions(), getMeanWaitMillis(),
+                getMaxWaitNanos() / 1_000_000.0, getTimeouts(), getMeanUsageMillis());
+    }
+}
@@ -0,0 +1,67 @@
+package util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * The process-wide connection pool. HibernateUtil and the Spring application
+ * both take their connections from here, so the JavaFX app, the REST API and
+ * the DAOs they share never open more than one pool against the database.
+ *
+ * Settings come from system properties: {@code stable.db.url},
+ * {@code stable.db.pool-size} (or the DB_POOL_SIZE environment variable) and
+ * {@code stable.db.leak-detection-ms}.
+ */
+public final class DataSourceProvider {
+    // QUERY_CACHE_SIZE is H2's per-connection prepared statement cache (default 8)
+    public static final String DEFAULT_URL = "jdbc:h2:./stable_db;AUTO_SERVER=TRUE;QUERY_CACHE_SIZE=64";
+    private static final ConnectionPoolMetrics METRICS = new ConnectionPoolMetrics();
+    private static HikariDataSource dataSource;
+
+    private DataSourceProvider() {
+        // Utility class
+    }
+
+    public static synchronized DataSource getDataSource() {
+        if (dataSource == null || dataSource.isClosed()) {
+            dataSource = new HikariDataSource(config());
+        }
+        return dataSource;
+    }
+
+    public static ConnectionPoolMetrics getMetrics() {
+        return METRICS;
+    }
+
+    public static synchronized void close() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+        }
+    }
+
+    private static HikariConfig config() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("stable-db");
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl(System.getProperty("stable.db.url", DEFAULT_URL));
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(Integer.getInteger("stable.db.pool-size", envInt("DB_POOL_SIZE", 10)));
+        config.setMinimumIdle(2);
+        config.setConnectionTimeout(5_000);
+        config.setIdleTimeout(300_000);
+        // Logs a stack trace for connections held longer than this, 0 disables
+        config.setLeakDetectionThreshold(Long.getLong("stable.db.leak-detection-ms", 20_000));
+        // Pool state as JMX MBeans (com.zaxxer.hikari:type=Pool (stable-db))
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(METRICS);
+        return config;
+    }
+
+    private static int envInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+}
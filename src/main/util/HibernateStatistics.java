@@ -0,0 +1,218 @@
+package util;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Query, entity and cache counters from Hibernate's statistics
+ * (hibernate.generate_statistics) of the SessionFactory the DAOs use. Readable
+ * without any metrics library; the JavaFX app publishes it over JMX and the
+ * Spring side through the {@code hibernate} actuator endpoint and Micrometer.
+ *
+ * Statements slower than the threshold are also logged by Hibernate itself on
+ * the {@code org.hibernate.SQL_SLOW} logger.
+ */
+public class HibernateStatistics implements HibernateStatisticsMXBean {
+    public static final String OBJECT_NAME = "stable:type=HibernateStatistics";
+    public static final String SLOW_QUERY_PROPERTY = "stable.db.slow-query-ms";
+    public static final long DEFAULT_SLOW_QUERY_MS = 200;
+    private static final int TOP_QUERIES = 20;
+
+    private final Supplier<SessionFactory> sessionFactory;
+    private final long slowQueryThresholdMillis;
+
+    public HibernateStatistics() {
+        this(HibernateUtil::getSessionFactory, slowQueryThreshold());
+    }
+
+    public HibernateStatistics(Supplier<SessionFactory> sessionFactory, long slowQueryThresholdMillis) {
+        this.sessionFactory = sessionFactory;
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    /**
+     * Slow-query threshold from -Dstable.db.slow-query-ms, 0 disables the log.
+     */
+    public static long slowQueryThreshold() {
+        return Long.getLong(SLOW_QUERY_PROPERTY, DEFAULT_SLOW_QUERY_MS);
+    }
+
+    /**
+     * Registers a platform MBean over HibernateUtil's SessionFactory. Calling it
+     * again is harmless.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new HibernateStatistics(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered
+        } catch (JMException e) {
+            System.err.println("Could not register Hibernate statistics MBean: " + e.getMessage());
+        }
+    }
+
+    @Override public long getQueryExecutionCount() { return stats().getQueryExecutionCount(); }
+    @Override public long getQueryExecutionMaxTimeMillis() { return stats().getQueryExecutionMaxTime(); }
+    @Override public String getSlowestQuery() { return stats().getQueryExecutionMaxTimeQueryString(); }
+    @Override public long getSlowQueryThresholdMillis() { return slowQueryThresholdMillis; }
+    @Override public long getPrepareStatementCount() { return stats().getPrepareStatementCount(); }
+    @Override public long getEntityLoadCount() { return stats().getEntityLoadCount(); }
+    @Override public long getEntityFetchCount() { return stats().getEntityFetchCount(); }
+    @Override public long getCollectionLoadCount() { return stats().getCollectionLoadCount(); }
+    @Override public long getCollectionFetchCount() { return stats().getCollectionFetchCount(); }
+    @Override public long getSecondLevelCacheHitCount() { return stats().getSecondLevelCacheHitCount(); }
+    @Override public long getSecondLevelCacheMissCount() { return stats().getSecondLevelCacheMissCount(); }
+
+    @Override
+    public double getSecondLevelCacheHitRatio() {
+        Statistics stats = stats();
+        long total = stats.getSecondLevelCacheHitCount() + stats.getSecondLevelCacheMissCount();
+        return total == 0 ? 0.0 : (double) stats.getSecondLevelCacheHitCount() / total;
+    }
+
+    /**
+     * Per-query counters, most total execution time first.
+     */
+    public List<QueryStat> getQueries() {
+        Statistics stats = stats();
+        List<QueryStat> queries = new ArrayList<>();
+        for (String query : stats.getQueries()) {
+            QueryStatistics queryStats = stats.getQueryStatistics(query);
+            if (queryStats.getExecutionCount() > 0) {
+                queries.add(new QueryStat(query, queryStats, slowQueryThresholdMillis));
+            }
+        }
+        queries.sort(Comparator.comparingLong(QueryStat::getTotalTimeMillis).reversed());
+        return queries;
+    }
+
+    /**
+     * Load and fetch counts per entity; a fetch is a separate select for an
+     * association or proxy that was not loaded with its owner.
+     */
+    public Map<String, Map<String, Long>> getEntities() {
+        Statistics stats = stats();
+        Map<String, Map<String, Long>> entities = new LinkedHashMap<>();
+        for (String name : stats.getEntityNames()) {
+            EntityStatistics entityStats = stats.getEntityStatistics(name);
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("loads", entityStats.getLoadCount());
+            counts.put("fetches", entityStats.getFetchCount());
+            counts.put("inserts", entityStats.getInsertCount());
+            counts.put("updates", entityStats.getUpdateCount());
+            counts.put("deletes", entityStats.getDeleteCount());
+            counts.put("cacheHits", entityStats.getCacheHitCount());
+            counts.put("cacheMisses", entityStats.getCacheMissCount());
+            entities.put(name, counts);
+        }
+        return entities;
+    }
+
+    /**
+     * Load and fetch counts per collection role, for example Stable.horseList.
+     */
+    public Map<String, Map<String, Long>> getCollections() {
+        Statistics stats = stats();
+        Map<String, Map<String, Long>> collections = new LinkedHashMap<>();
+        for (String role : stats.getCollectionRoleNames()) {
+            CollectionStatistics collectionStats = stats.getCollectionStatistics(role);
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("loads", collectionStats.getLoadCount());
+            counts.put("fetches", collectionStats.getFetchCount());
+            counts.put("cacheHits", collectionStats.getCacheHitCount());
+            counts.put("cacheMisses", collectionStats.getCacheMissCount());
+            collections.put(role, counts);
+        }
+        return collections;
+    }
+
+    @Override
+    public String[] getTopQueries() {
+        List<QueryStat> queries = getQueries();
+        String[] lines = new String[Math.min(TOP_QUERIES, queries.size())];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = queries.get(i).toString();
+        }
+        return lines;
+    }
+
+    @Override
+    public String[] getCollectionFetches() {
+        List<String> lines = new ArrayList<>();
+        getCollections().forEach((role, counts) -> lines.add(String.format("%s loads=%d fetches=%d",
+                role, counts.get("loads"), counts.get("fetches"))));
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public String summary() {
+        Statistics stats = stats();
+        return String.format("queries=%d (max %dms), statements=%d, entity loads=%d fetches=%d, "
+                        + "collection loads=%d fetches=%d, L2 hits=%d misses=%d ratio=%.2f",
+                stats.getQueryExecutionCount(), stats.getQueryExecutionMaxTime(), stats.getPrepareStatementCount(),
+                stats.getEntityLoadCount(), stats.getEntityFetchCount(),
+                stats.getCollectionLoadCount(), stats.getCollectionFetchCount(),
+                stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount(), getSecondLevelCacheHitRatio());
+    }
+
+    @Override
+    public void reset() {
+        stats().clear();
+    }
+
+    private Statistics stats() {
+        return sessionFactory.get().getStatistics();
+    }
+
+    /** Counters of one HQL query. */
+    public static class QueryStat {
+        private final String query;
+        private final long executions;
+        private final long totalTimeMillis;
+        private final long maxTimeMillis;
+        private final long rows;
+        private final long cacheHits;
+        private final boolean slow;
+
+        QueryStat(String query, QueryStatistics stats, long slowQueryThresholdMillis) {
+            this.query = query;
+            this.executions = stats.getExecutionCount();
+            this.totalTimeMillis = stats.getExecutionTotalTime();
+            this.maxTimeMillis = stats.getExecutionMaxTime();
+            this.rows = stats.getExecutionRowCount();
+            this.cacheHits = stats.getCacheHitCount();
+            this.slow = slowQueryThresholdMillis > 0 && maxTimeMillis >= slowQueryThresholdMillis;
+        }
+
+        public String getQuery() { return query; }
+        public long getExecutions() { return executions; }
+        public long getTotalTimeMillis() { return totalTimeMillis; }
+        public long getMaxTimeMillis() { return maxTimeMillis; }
+        public double getAverageTimeMillis() { return executions == 0 ? 0.0 : (double) totalTimeMillis / executions; }
+        public long getRows() { return rows; }
+        public long getCacheHits() { return cacheHits; }
+        public boolean isSlow() { return slow; }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d total=%dms avg=%.1fms max=%dms rows=%d%s : %s", executions,
+                    totalTimeMillis, getAverageTimeMillis(), maxTimeMillis, rows, slow ? " SLOW" : "", query);
+        }
+    }
+}
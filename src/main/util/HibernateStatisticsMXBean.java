@@ -0,0 +1,30 @@
+package util;
+
+/**
+ * JMX view of {@link HibernateStatistics}, registered by the JavaFX app as
+ * {@value HibernateStatistics#OBJECT_NAME}.
+ */
+public interface HibernateStatisticsMXBean {
+    long getQueryExecutionCount();
+    long getQueryExecutionMaxTimeMillis();
+    String getSlowestQuery();
+    long getSlowQueryThresholdMillis();
+    long getPrepareStatementCount();
+    long getEntityLoadCount();
+    long getEntityFetchCount();
+    long getCollectionLoadCount();
+    long getCollectionFetchCount();
+    long getSecondLevelCacheHitCount();
+    long getSecondLevelCacheMissCount();
+    double getSecondLevelCacheHitRatio();
+
+    /** Queries by total execution time, one line each, most expensive first. */
+    String[] getTopQueries();
+
+    /** Lazy collection fetches per role, the usual sign of an N+1 pattern. */
+    String[] getCollectionFetches();
+
+    String summary();
+
+    void reset();
+}
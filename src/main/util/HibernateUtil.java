@@ -1,10 +1,13 @@
 package util;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
 
 public class HibernateUtil {
-    private static SessionFactory sessionFactory;
+    private static volatile SessionFactory sessionFactory;
+    // True when the SessionFactory belongs to someone else (Spring), see register
+    private static volatile boolean external;
 
     private HibernateUtil() {
         // Private constructor to prevent instantiation
@@ -17,6 +20,11 @@ public class HibernateUtil {
                     try {
                         Configuration configuration = new Configuration();
                         configuration.configure("hibernate.cfg.xml");
+                        // Connections come from the shared pool, see DataSourceProvider
+                        configuration.getProperties().put(AvailableSettings.DATASOURCE, DataSourceProvider.getDataSource());
+                        // Logged on org.hibernate.SQL_SLOW, see HibernateStatistics
+                        configuration.setProperty(AvailableSettings.LOG_SLOW_QUERY,
+                                String.valueOf(HibernateStatistics.slowQueryThreshold()));
                         sessionFactory = configuration.buildSessionFactory();
                     } catch (Exception e) {
                         System.err.println("Initial SessionFactory creation failed: " + e);
@@ -28,9 +36,35 @@ public class HibernateUtil {
         return sessionFactory;
     }
 
-    public static void shutdown() {
+    /**
+     * Makes the DAOs use a SessionFactory built elsewhere instead of building
+     * one from hibernate.cfg.xml. Under Spring Boot this is the native
+     * SessionFactory behind the EntityManagerFactory. The owner stays
+     * responsible for closing it.
+     */
+    public static synchronized void register(SessionFactory factory) {
+        if (sessionFactory != null && sessionFactory != factory && !external) {
+            throw new IllegalStateException("HibernateUtil already built its own SessionFactory");
+        }
+        sessionFactory = factory;
+        external = true;
+    }
+
+    public static boolean isExternal() {
+        return external;
+    }
+
+    public static synchronized void shutdown() {
+        if (external) {
+            // Spring closes its EntityManagerFactory and the pool with the context
+            sessionFactory = null;
+            external = false;
+            return;
+        }
         if (sessionFactory != null && !sessionFactory.isClosed()) {
             sessionFactory.close();
         }
+        sessionFactory = null;
+        DataSourceProvider.close();
     }
 }
@@ -0,0 +1,97 @@
+package util;
+
+import model.Horse;
+import model.Stable;
+import org.hibernate.Cache;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Invalidation helpers and hit-ratio statistics for the second-level cache
+ * configured in hibernate.cfg.xml and ehcache.xml.
+ */
+public final class SecondLevelCache {
+    public static final String STABLE_BY_NAME_REGION = "query.stableByName";
+    private static final String HORSE_LIST_ROLE = Stable.class.getName() + ".horseList";
+
+    private SecondLevelCache() {
+        // Utility class
+    }
+
+    /**
+     * Drops a stable and its cached horse list. Used by the DAO write paths,
+     * since the cached stable carries an occupancy count that Hibernate does not
+     * know to refresh when horses change.
+     */
+    public static void evictStable(Long stableId) {
+        if (stableId == null) {
+            return;
+        }
+        Cache cache = HibernateUtil.getSessionFactory().getCache();
+        cache.evictEntityData(Stable.class, stableId);
+        cache.evictCollectionData(HORSE_LIST_ROLE, stableId);
+    }
+
+    /**
+     * Drops one stable, its horse list and the horses in that list, for example
+     * after an optimistic lock failure showed that the cached copies are stale.
+     * Other stables stay cached.
+     */
+    public static void evictStableAndHorses(Stable stable) {
+        evictStable(stable.getId());
+        Cache cache = HibernateUtil.getSessionFactory().getCache();
+        for (Horse horse : stable.getHorseList()) {
+            if (horse.getId() != null) {
+                cache.evictEntityData(Horse.class, horse.getId());
+            }
+        }
+    }
+
+    public static void evictAll() {
+        HibernateUtil.getSessionFactory().getCache().evictAllRegions();
+    }
+
+    public static double getHitRatio() {
+        Statistics stats = getStatistics();
+        return ratio(stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount());
+    }
+
+    public static double getQueryCacheHitRatio() {
+        Statistics stats = getStatistics();
+        return ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount());
+    }
+
+    /**
+     * Hit ratio per cache region, in region name order.
+     */
+    public static Map<String, Double> getRegionHitRatios() {
+        Statistics stats = getStatistics();
+        Map<String, Double> ratios = new LinkedHashMap<>();
+        for (String region : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = stats.getCacheRegionStatistics(region);
+            if (regionStats != null) {
+                ratios.put(region, ratio(regionStats.getHitCount(), regionStats.getMissCount()));
+            }
+        }
+        return ratios;
+    }
+
+    public static String summary() {
+        Statistics stats = getStatistics();
+        return String.format("L2 hits=%d misses=%d ratio=%.2f, query cache hits=%d misses=%d ratio=%.2f",
+                stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount(), getHitRatio(),
+                stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount(), getQueryCacheHitRatio());
+    }
+
+    private static Statistics getStatistics() {
+        return HibernateUtil.getSessionFactory().getStatistics();
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
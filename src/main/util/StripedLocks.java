@@ -0,0 +1,41 @@
+package util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by hashing keys onto them. Keys on different
+ * stripes never wait for each other, and memory stays the same however many
+ * keys there are. Two keys share a lock only when they hash to the same stripe.
+ */
+public final class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        if (stripes < 1 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("Stripes must be between 1 and 65536");
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public ReentrantLock get(Object key) {
+        int hash = key.hashCode();
+        // Spread the high bits down, as HashMap does, small tables only see the low bits
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
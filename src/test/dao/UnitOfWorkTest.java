@@ -0,0 +1,132 @@
+package dao;
+
+import model.Stable;
+import org.hibernate.Session;
+import org.junit.jupiter.api.*;
+import util.HibernateUtil;
+import util.TestDatabaseUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitOfWorkTest {
+    private StableDAO stableDAO;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        stableDAO = new StableDAOImpl();
+    }
+
+    @AfterEach
+    void tearDown() {
+        assertNull(UnitOfWork.current(), "unit of work left open on the thread");
+    }
+
+    @Test
+    @DisplayName("Test DAO calls without a unit of work commit on their own")
+    void testDaoCommitsWithoutUnitOfWork() {
+        stableDAO.save(new Stable("North Farm", 10));
+        assertTrue(committed("North Farm"));
+    }
+
+    @Test
+    @DisplayName("Test DAO calls join the open unit of work and commit with it")
+    void testDaoJoinsUnitOfWork() {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            stableDAO.save(new Stable("North Farm", 10));
+            // Same session: the stable is managed and visible without a flush to another session
+            assertSame(unitOfWork.getSession(), UnitOfWork.current().getSession());
+            assertNotNull(stableDAO.findByName("North Farm"));
+            assertFalse(committed("North Farm"));
+            unitOfWork.commit();
+        }
+        assertTrue(committed("North Farm"));
+    }
+
+    @Test
+    @DisplayName("Test closing without commit rolls back every DAO call")
+    void testCloseWithoutCommitRollsBack() {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            stableDAO.save(new Stable("North Farm", 10));
+            stableDAO.save(new Stable("South Farm", 5));
+        }
+        assertFalse(committed("North Farm"));
+        assertFalse(committed("South Farm"));
+    }
+
+    @Test
+    @DisplayName("Test nested unit of work joins the outer one and commits only with it")
+    void testNestedUnitJoins() {
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                assertSame(outer.getSession(), inner.getSession());
+                stableDAO.save(new Stable("North Farm", 10));
+                inner.commit();
+            }
+            assertSame(outer, UnitOfWork.current());
+            assertFalse(committed("North Farm"));
+            outer.commit();
+        }
+        assertTrue(committed("North Farm"));
+    }
+
+    @Test
+    @DisplayName("Test a nested unit closed without commit makes the outer commit fail")
+    void testNestedRollbackFailsOuterCommit() {
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            stableDAO.save(new Stable("North Farm", 10));
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                stableDAO.save(new Stable("South Farm", 5));
+            }
+            assertThrows(IllegalStateException.class, outer::commit);
+        }
+        assertFalse(committed("North Farm"));
+        assertFalse(committed("South Farm"));
+    }
+
+    @Test
+    @DisplayName("Test completions run in order once the outermost unit has closed")
+    void testAfterCompletionOrder() {
+        List<String> events = new ArrayList<>();
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            outer.afterCompletion(() -> events.add("outer first"));
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                inner.afterCompletion(() -> events.add("inner"));
+                inner.commit();
+            }
+            outer.afterCompletion(() -> {
+                // The thread is already free for a new unit of work
+                assertNull(UnitOfWork.current());
+                events.add("outer last");
+            });
+            assertTrue(events.isEmpty());
+            outer.commit();
+            assertTrue(events.isEmpty());
+        }
+        assertEquals(List.of("outer first", "inner", "outer last"), events);
+    }
+
+    @Test
+    @DisplayName("Test completions also run after a rollback")
+    void testAfterCompletionOnRollback() {
+        List<String> events = new ArrayList<>();
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            unitOfWork.afterCompletion(() -> events.add("done"));
+            stableDAO.save(new Stable("North Farm", 10));
+        }
+        assertEquals(List.of("done"), events);
+        assertFalse(committed("North Farm"));
+    }
+
+    // Looks in a session of its own, outside any unit of work on this thread
+    private static boolean committed(String stableName) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.createQuery("SELECT COUNT(s) FROM Stable s WHERE s.stableName = :name", Long.class)
+                    .setParameter("name", stableName)
+                    .uniqueResult() > 0;
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package facade;
 
+import dao.HorseDAOImpl;
+import dao.HorseFilter;
+import dao.HorseQuery;
 import org.junit.jupiter.api.*;
 import exceptions.*;
 import model.*;
+import service.CapacityAdmission;
 import util.TestDatabaseUtil;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.jupiter.api.Assertions.*;
 
 class StableFacadeTest {
@@ -77,6 +88,91 @@ class StableFacadeTest {
         assertEquals("Bella", healthy.get(0).getName());
     }
     
+    @Test
+    @DisplayName("Test case-insensitive horse lookup")
+    void testFindByNameIgnoreCase() throws StableException {
+        facade.addStable("North Farm", 10);
+        facade.addHorseToStable("North Farm", "Bella", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        
+        List<Horse> found = new HorseDAOImpl().findByNameIgnoreCase("bELLA");
+        assertEquals(1, found.size());
+        assertEquals("Bella", found.get(0).getName());
+        assertTrue(new HorseDAOImpl().findByNameIgnoreCase("Bell").isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Test concurrent adds never overfill a stable")
+    void testConcurrentAddsRespectCapacity() throws Exception {
+        facade.addStable("North Farm", 5);
+        facade.addStable("South Farm", 7);
+        int threads = 32;
+        int attemptsPerThread = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    String stable = (thread + i) % 2 == 0 ? "North Farm" : "South Farm";
+                    try {
+                        facade.addHorseToStable(stable, "Horse " + thread + "-" + i, "Arabian",
+                            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 5, 1000.0, 400.0);
+                        admitted.incrementAndGet();
+                    } catch (StableCapacityException e) {
+                        refused.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        assertEquals(threads * attemptsPerThread, admitted.get() + refused.get());
+        assertEquals(5, new HorseDAOImpl().countByStableId(facade.getStable("North Farm").getId()));
+        assertEquals(7, new HorseDAOImpl().countByStableId(facade.getStable("South Farm").getId()));
+        assertEquals(12, admitted.get());
+        assertEquals(0, CapacityAdmission.getInstance().getInFlight(facade.getStable("North Farm").getId()));
+    }
+    
+    @Test
+    @DisplayName("Test concurrent edits of one horse are not lost")
+    void testConcurrentEditsKeepEveryUpdate() throws Exception {
+        facade.addStable("North Farm", 10);
+        facade.addHorseToStable("North Farm", "Bella", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        long initialVersion = facade.getHorsesInStable("North Farm").get(0).getVersion();
+        int threads = 16;
+        int editsPerThread = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < editsPerThread; i++) {
+                    // Distinct weights, so every edit really changes the row
+                    facade.changeHorseWeight("North Farm", "Bella", 500.0 + thread * editsPerThread + i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        Horse bella = new HorseDAOImpl().findByName("Bella");
+        assertEquals(initialVersion + threads * editsPerThread, bella.getVersion());
+    }
+    
     @Test
     @DisplayName("Test sort horses by name")
     void testSortHorsesByName() throws StableException {
@@ -118,6 +214,133 @@ class StableFacadeTest {
         assertEquals(HorseCondition.TRAINING, horses.get(0).getCondition());
     }
     
+    @Test
+    @DisplayName("Test change condition of a missing horse or stable")
+    void testChangeHorseConditionNotFound() throws StableException {
+        facade.addStable("North Farm", 10);
+        facade.addHorseToStable("North Farm", "Bella", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        
+        facade.changeHorseCondition("North Farm", "BELLA", HorseCondition.SICK);
+        assertEquals(HorseCondition.SICK, facade.getHorsesInStable("North Farm").get(0).getCondition());
+        assertThrows(HorseNotFoundException.class,
+            () -> facade.changeHorseCondition("North Farm", "Argo", HorseCondition.SICK));
+        assertThrows(StableNotFoundException.class,
+            () -> facade.changeHorseCondition("South Farm", "Bella", HorseCondition.SICK));
+    }
+    
+    @Test
+    @DisplayName("Test bulk condition change by filter")
+    void testChangeHorseConditions() throws StableException {
+        facade.addStable("North Farm", 10);
+        facade.addStable("South Farm", 10);
+        facade.addHorseToStable("North Farm", "Bella", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        facade.addHorseToStable("North Farm", "Argo", "Shire", 
+            HorseType.COLD_BLOODED, HorseCondition.TRAINING, 8, 8000.0, 700.0);
+        facade.addHorseToStable("North Farm", "Dune", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 15, 9000.0, 440.0);
+        facade.addHorseToStable("South Farm", "Sahara", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 7, 12000.0, 460.0);
+        
+        int changed = facade.changeHorseConditions(
+            HorseFilter.all().stableName("North Farm").breed("arabian").ages(null, 10), HorseCondition.QUARANTINE);
+        
+        assertEquals(1, changed);
+        assertEquals(List.of("Bella"), facade.filterHorsesByCondition("North Farm", HorseCondition.QUARANTINE)
+            .stream().map(Horse::getName).toList());
+        // Every Arabian in every stable, Bella included
+        assertEquals(3, facade.changeHorseConditions(
+            HorseFilter.all().breed("Arabian"), HorseCondition.QUARANTINE));
+        assertThrows(StableNotFoundException.class, () -> facade.changeHorseConditions(
+            HorseFilter.all().stableName("East Farm"), HorseCondition.QUARANTINE));
+    }
+    
+    @Test
+    @DisplayName("Test filtered, sorted and paged horse query")
+    void testFindHorses() throws StableException {
+        facade.addStable("North Farm", 10);
+        facade.addStable("South Farm", 10);
+        facade.addHorseToStable("North Farm", "Bella", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        facade.addHorseToStable("North Farm", "Argo", "Shire", 
+            HorseType.COLD_BLOODED, HorseCondition.TRAINING, 8, 8000.0, 700.0);
+        facade.addHorseToStable("South Farm", "Dune", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 15, 9000.0, 440.0);
+        facade.addHorseToStable("South Farm", "Sahara", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 7, 9000.0, 460.0);
+        
+        HorseFilter arabians = HorseFilter.all().breed("Arabian").prices(8500.0, null);
+        List<Horse> first = facade.findHorses(HorseQuery.where(arabians)
+            .sortBy(HorseQuery.Sort.PRICE).limit(2));
+        assertEquals(List.of("Dune", "Sahara"), first.stream().map(Horse::getName).toList());
+        
+        // Keyset continuation after the second horse, on a tied price
+        List<Horse> next = facade.findHorses(HorseQuery.where(arabians)
+            .sortBy(HorseQuery.Sort.PRICE).after(first.get(1).getId()).limit(2));
+        assertEquals(List.of("Bella"), next.stream().map(Horse::getName).toList());
+        
+        List<Horse> descending = facade.findHorses(HorseQuery.where(HorseFilter.all().text("a"))
+            .sortBy(HorseQuery.Sort.NAME).descending(true));
+        assertEquals(List.of("Sahara", "Dune", "Bella", "Argo"), descending.stream().map(Horse::getName).toList());
+        
+        assertThrows(StableNotFoundException.class, () -> facade.sortHorsesByPrice("East Farm"));
+    }
+    
+    @Test
+    @DisplayName("Test a change that loses to a concurrent bulk update is retried")
+    void testMutationRetriedAfterVersionConflict() throws Exception {
+        facade.addStable("North Farm", 10);
+        facade.addHorseToStable("North Farm", "Bella", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        AtomicInteger attempts = new AtomicInteger();
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            facade.mutateStable("North Farm", "changing weight", (stable, unitOfWork) -> {
+                if (attempts.incrementAndGet() == 1) {
+                    // Commits on another thread after this unit has read Bella,
+                    // so the flush below finds her version changed
+                    try {
+                        other.submit(() -> facade.changeHorseConditions(
+                            HorseFilter.all().stableName("North Farm"), HorseCondition.SICK)).get(60, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                stable.changeWeight(stable.search("Bella"), 480.0);
+            });
+        } finally {
+            other.shutdown();
+        }
+        
+        assertEquals(2, attempts.get());
+        Horse bella = facade.getHorsesInStable("North Farm").get(0);
+        assertEquals(480.0, bella.getWeightKg());
+        assertEquals(HorseCondition.SICK, bella.getCondition());
+    }
+    
+    @Test
+    @DisplayName("Test change condition changes only one of two same-named horses")
+    void testChangeHorseConditionSameName() throws StableException {
+        facade.addStable("North Farm", 10);
+        facade.addHorseToStable("North Farm", "Bella", "Arabian", 
+            HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        facade.addHorseToStable("North Farm", "Bella", "Shire", 
+            HorseType.COLD_BLOODED, HorseCondition.HEALTHY, 8, 8000.0, 700.0);
+        
+        facade.changeHorseCondition("North Farm", "bella", HorseCondition.SICK);
+        facade.changeHorseWeight("North Farm", "Bella", 480.0);
+        
+        List<Horse> horses = facade.getHorsesInStable("North Farm");
+        assertEquals(2, horses.size());
+        Horse arabian = horses.stream().filter(h -> h.getBreed().equals("Arabian")).findFirst().orElseThrow();
+        Horse shire = horses.stream().filter(h -> h.getBreed().equals("Shire")).findFirst().orElseThrow();
+        assertEquals(HorseCondition.SICK, arabian.getCondition());
+        assertEquals(480.0, arabian.getWeightKg());
+        assertEquals(HorseCondition.HEALTHY, shire.getCondition());
+        assertEquals(700.0, shire.getWeightKg());
+    }
+    
     @Test
     @DisplayName("Test change horse weight")
     void testChangeHorseWeight() throws StableException {
@@ -146,4 +369,28 @@ class StableFacadeTest {
         assertEquals(2, sorted.size());
         assertTrue(sorted.get(0).occupancyPercent() >= sorted.get(1).occupancyPercent());
     }
+    
+    @Test
+    @DisplayName("Test restoring stables with horses skips taken names")
+    void testRestoreStables() throws StableException {
+        facade.addStable("North Farm", 10);
+        Stable north = new Stable("North Farm", 5);
+        Stable south = new Stable("South Farm", 5);
+        south.addHorse(new Horse("Bella", "Arabian", HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0));
+        south.addHorse(new Horse("Argo", "Shire", HorseType.COLD_BLOODED, HorseCondition.TRAINING, 8, 8000.0, 700.0));
+        Stable southAgain = new Stable("South Farm", 1);
+        
+        List<Integer> progress = new ArrayList<>();
+        RestoreReport report = facade.restoreStables(List.of(north, south, southAgain),
+                (done, total) -> progress.add(done));
+        
+        assertEquals(1, report.getStablesRestored());
+        assertEquals(2, report.getHorsesRestored());
+        assertEquals(List.of("South Farm", "North Farm"), report.getConflicts());
+        assertEquals(List.of(3), progress);
+        assertEquals(10, facade.getStable("North Farm").getMaxCapacity());
+        assertEquals(2, facade.getHorsesInStable("South Farm").size());
+        assertEquals("- South Farm: already exists\n- North Farm: already exists", report.problemSummary(20));
+        assertEquals("- South Farm: already exists\n... and 1 more", report.problemSummary(1));
+    }
 }
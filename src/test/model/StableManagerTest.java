@@ -1,7 +1,15 @@
 package model;
 
+import dao.StableDAOImpl;
+import org.hibernate.Hibernate;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import exceptions.*;
+import util.ConnectionPoolMetrics;
+import util.DataSourceProvider;
+import util.HibernateStatistics;
+import util.HibernateUtil;
+import util.SecondLevelCache;
 import util.TestDatabaseUtil;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
@@ -117,4 +125,73 @@ class StableManagerTest {
         // First two should have higher load than empty
         assertTrue(sorted.get(0).occupancyPercent() >= sorted.get(2).occupancyPercent());
     }
+    
+    @Test
+    @DisplayName("Test listed stables report occupancy without loading horses")
+    void testOccupancyWithoutHorses() throws StableException {
+        manager.addStable("Half", 4);
+        Stable half = manager.getStable("Half");
+        half.addHorse(new Horse("H1", "Arabian", HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 5, 10000.0, 400.0));
+        half.addHorse(new Horse("H2", "Arabian", HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 5, 10000.0, 400.0));
+        new StableDAOImpl().update(half);
+        
+        // Detached and with an uninitialized horse list: only the selected count can be used
+        Stable listed = manager.getAllStables().get(0);
+        assertEquals(2, listed.getCurrentLoad());
+        assertEquals(50.0, listed.occupancyPercent(), 0.01);
+        assertTrue(manager.findEmpty().isEmpty());
+        
+        Stable single = new StableDAOImpl().findByIdWithoutHorses(half.getId());
+        assertFalse(Hibernate.isInitialized(single.getHorseList()));
+        assertEquals(2, single.getCurrentLoad());
+    }
+    
+    @Test
+    @DisplayName("Test repeated stable lookups are served from the second-level cache")
+    void testLookupUsesSecondLevelCache() throws StableException {
+        manager.addStable("North Farm", 10);
+        manager.getStable("North Farm");
+        
+        Statistics stats = HibernateUtil.getSessionFactory().getStatistics();
+        long queryHits = stats.getQueryCacheHitCount();
+        long entityHits = stats.getSecondLevelCacheHitCount();
+        
+        Stable stable = manager.getStable("North Farm");
+        assertEquals("North Farm", stable.getStableName());
+        assertTrue(stats.getQueryCacheHitCount() > queryHits);
+        assertTrue(stats.getSecondLevelCacheHitCount() > entityHits);
+        
+        manager.removeStable("North Farm");
+        assertThrows(StableNotFoundException.class, () -> manager.getStable("North Farm"));
+    }
+    
+    @Test
+    @DisplayName("Test DAO work goes through the shared, instrumented pool")
+    void testConnectionsComeFromSharedPool() throws StableException {
+        ConnectionPoolMetrics metrics = DataSourceProvider.getMetrics();
+        long acquisitions = metrics.getAcquisitions();
+        
+        manager.addStable("Pool Farm", 3);
+        
+        assertTrue(metrics.getAcquisitions() > acquisitions);
+        assertEquals(0, metrics.getTimeouts());
+        assertSame(DataSourceProvider.getDataSource(), DataSourceProvider.getDataSource());
+    }
+
+    @Test
+    @DisplayName("Test Hibernate statistics record queries and collection fetches")
+    void testHibernateStatistics() throws StableException {
+        HibernateStatistics statistics = new HibernateStatistics();
+        manager.addStable("Stats Farm", 3);
+        SecondLevelCache.evictAll();
+        statistics.reset();
+        
+        manager.getStable("Stats Farm");
+        
+        assertTrue(statistics.getQueryExecutionCount() > 0);
+        assertFalse(statistics.getQueries().isEmpty());
+        assertTrue(statistics.getQueries().get(0).getExecutions() > 0);
+        assertTrue(statistics.getCollections().containsKey("model.Stable.horseList"));
+        assertTrue(statistics.summary().startsWith("queries="));
+    }
 }
@@ -168,4 +168,47 @@ class StableTest {
         stable.addHorse(horse2);
         assertEquals(40.0, stable.occupancyPercent(), 0.01);
     }
+    
+    @Test
+    @DisplayName("Test current load follows the horse list")
+    void testCurrentLoad() throws StableException {
+        assertEquals(0, stable.getCurrentLoad());
+        stable.addHorse(horse1);
+        stable.addHorse(horse2);
+        assertEquals(2, stable.getCurrentLoad());
+        stable.removeHorse(horse1);
+        assertEquals(1, stable.getCurrentLoad());
+    }
+    
+    @Test
+    @DisplayName("Test lookups match equal horses and stay consistent after removal")
+    void testIndexedLookup() throws StableException {
+        stable.addHorse(horse1);
+        stable.addHorse(horse2);
+        Horse sameAsBella = new Horse("BELLA", "arabian", HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 1.0, 1.0);
+        assertThrows(DuplicateHorseException.class, () -> stable.addHorse(sameAsBella));
+        
+        stable.changeWeight(sameAsBella, 470.0);
+        assertEquals(470.0, horse1.getWeightKg());
+        assertSame(horse1, stable.search("bElLa"));
+        
+        stable.sickHorse(sameAsBella);
+        assertNull(stable.search("Bella"));
+        assertThrows(HorseNotFoundException.class, () -> stable.changeCondition(horse1, HorseCondition.HEALTHY));
+        stable.addHorse(horse1);
+        assertSame(horse1, stable.search("Bella"));
+        assertEquals(2, stable.getCurrentLoad());
+    }
+    
+    @Test
+    @DisplayName("Test search distinguishes horses sharing a name")
+    void testSearchSameName() throws StableException {
+        Horse otherBella = new Horse("Bella", "Shire", HorseType.COLD_BLOODED, HorseCondition.HEALTHY, 3, 5000.0, 650.0);
+        stable.addHorse(horse1);
+        stable.addHorse(otherBella);
+        stable.removeHorse(horse1);
+        assertSame(otherBella, stable.search("bella"));
+        stable.changeCondition(otherBella, HorseCondition.TRAINING);
+        assertEquals(HorseCondition.TRAINING, otherBella.getCondition());
+    }
 }
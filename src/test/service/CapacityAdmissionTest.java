@@ -0,0 +1,124 @@
+package service;
+
+import dao.HorseDAOImpl;
+import dao.StableDAO;
+import dao.StableDAOImpl;
+import exceptions.StableCapacityException;
+import model.HorseCondition;
+import model.HorseType;
+import model.Stable;
+import org.junit.jupiter.api.*;
+import springboot.dto.HorseRequest;
+import springboot.service.HorseService;
+import util.TestDatabaseUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapacityAdmissionTest {
+    private static final int THREADS = 32;
+
+    private final CapacityAdmission admission = CapacityAdmission.getInstance();
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Test racing admissions never store more horses than the capacity")
+    void testConcurrentAdmit() throws Exception {
+        // Not persisted, the id only keys the in-flight counter
+        Stable stable = new Stable("Racing Farm", 5);
+        stable.setId(-1L);
+        AtomicLong stored = new AtomicLong();
+        AtomicLong mostStored = new AtomicLong();
+
+        runConcurrently(20, attempt -> {
+            try (CapacityAdmission.Ticket ticket = admission.admit(stable, stored::get)) {
+                Thread.yield(); // the insert, still uncommitted
+                mostStored.accumulateAndGet(stored.incrementAndGet(), Math::max);
+            } catch (StableCapacityException e) {
+                // refused
+            }
+        });
+
+        assertTrue(mostStored.get() <= 5, "stored " + mostStored.get() + " horses in 5 places");
+        assertEquals(0, admission.getInFlight(stable.getId()));
+        // Whatever the race left free can still be taken, then the stable is full
+        while (stored.get() < 5) {
+            try (CapacityAdmission.Ticket ticket = admission.admit(stable, stored::get)) {
+                stored.incrementAndGet();
+            }
+        }
+        assertThrows(StableCapacityException.class, () -> admission.admit(stable, stored::get));
+    }
+
+    @Test
+    @DisplayName("Test concurrent HorseService.addHorse calls respect the capacity")
+    void testConcurrentAddHorse() throws Exception {
+        StableDAO stableDAO = new StableDAOImpl();
+        HorseDAOImpl horseDAO = new HorseDAOImpl();
+        HorseService horseService = new HorseService(horseDAO, stableDAO);
+        Stable stable = new Stable("North Farm", 5);
+        stableDAO.save(stable);
+        AtomicInteger added = new AtomicInteger();
+
+        runConcurrently(2, attempt -> {
+            HorseRequest request = new HorseRequest("Horse " + attempt, "Arabian", HorseType.HOT_BLOODED,
+                    HorseCondition.HEALTHY, 5, 1000.0, 400.0, stable.getId());
+            try {
+                horseService.addHorse(request);
+                added.incrementAndGet();
+            } catch (StableCapacityException e) {
+                // refused
+            }
+        });
+
+        long count = horseDAO.countByStableId(stable.getId());
+        assertTrue(count <= 5, "stored " + count + " horses in 5 places");
+        assertTrue(count > 0);
+        assertEquals(added.get(), count);
+        assertEquals(0, admission.getInFlight(stable.getId()));
+    }
+
+    private interface Attempt {
+        void run(int attempt) throws Exception;
+    }
+
+    // Every thread waits for a common start, then makes its attempts
+    private void runConcurrently(int attemptsPerThread, Attempt attempt) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    attempt.run(thread * attemptsPerThread + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package service;
 
+import com.zaxxer.hikari.HikariDataSource;
 import dao.HorseDAO;
 import dao.HorseDAOImpl;
 import dao.RatingDAO;
@@ -7,15 +8,25 @@ import dao.RatingDAOImpl;
 import dao.StableDAO;
 import dao.StableDAOImpl;
 import model.*;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.junit.jupiter.api.*;
+import util.DataSourceProvider;
+import util.HibernateUtil;
 import util.TestDatabaseUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -80,6 +91,91 @@ class ServiceIntegrationTest {
         assertEquals(1, loaded.getHorseList().size());
     }
 
+    @Test
+    @DisplayName("Test binary snapshot round trip of stables")
+    void testStablesSnapshot() throws Exception {
+        String filename = tempDir.resolve("stables.ser").toString();
+        Stable north = new Stable("North", 5);
+        north.addHorse(new Horse("Bella", "Arabian", HorseType.HOT_BLOODED,
+                                 HorseCondition.SICK, 6, 15000.5, 450.25));
+        north.addHorse(new Horse("Żubr", "Shire", HorseType.COLD_BLOODED,
+                                 HorseCondition.TRAINING, 8, 8000.0, 700.0));
+        Stable empty = new Stable("Empty", 3);
+
+        serializationService.saveStables(List.of(north, empty), filename);
+        List<Stable> loaded = serializationService.loadStables(filename);
+
+        assertEquals(2, loaded.size());
+        assertEquals("North", loaded.get(0).getStableName());
+        assertEquals(5, loaded.get(0).getMaxCapacity());
+        Horse bella = loaded.get(0).search("Bella");
+        assertEquals("Arabian", bella.getBreed());
+        assertEquals(HorseCondition.SICK, bella.getCondition());
+        assertEquals(15000.5, bella.getPrice());
+        assertEquals(450.25, bella.getWeightKg());
+        assertEquals(HorseType.COLD_BLOODED, loaded.get(0).search("żubr").getType());
+        assertTrue(loaded.get(1).getHorseList().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test snapshot round trip keeps a stable that is over capacity")
+    void testOverCapacitySnapshot() throws Exception {
+        String filename = tempDir.resolve("over.ser").toString();
+        Stable over = new Stable("Over", 1);
+        over.restoreHorses(List.of(
+                new Horse("Bella", "Arabian", HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0),
+                new Horse("Argo", "Shire", HorseType.COLD_BLOODED, HorseCondition.HEALTHY, 8, 8000.0, 700.0)));
+
+        serializationService.saveStables(List.of(over), filename);
+        Stable loaded = serializationService.loadStables(filename).get(0);
+        assertEquals(1, loaded.getMaxCapacity());
+        assertEquals(2, loaded.getHorseList().size());
+        assertEquals("Shire", loaded.search("argo").getBreed());
+
+        try (SnapshotReader reader = SnapshotReader.open(Path.of(filename))) {
+            assertEquals(2, reader.readStable("Over").getHorseList().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Test snapshot reader pulls single stables and horses by name")
+    void testSnapshotReader() throws Exception {
+        String filename = tempDir.resolve("indexed.ser").toString();
+        Stable first = new Stable("First", 2);
+        first.addHorse(new Horse("Argo", "Shire", HorseType.COLD_BLOODED,
+                                 HorseCondition.HEALTHY, 8, 8000.0, 700.0));
+        Stable second = new Stable("Second", 2);
+        second.addHorse(new Horse("Coco", "Thoroughbred", HorseType.HOT_BLOODED,
+                                  HorseCondition.TRAINING, 4, 22000.0, 380.0));
+        second.addHorse(new Horse("Bella", "Arabian", HorseType.HOT_BLOODED,
+                                  HorseCondition.HEALTHY, 6, 15000.0, 450.0));
+        serializationService.saveStables(List.of(first, second), filename);
+
+        try (SnapshotReader reader = SnapshotReader.open(Path.of(filename))) {
+            assertEquals(List.of("First", "Second"), reader.getStableNames());
+            Stable loaded = reader.readStable("Second");
+            assertEquals(2, loaded.getHorseList().size());
+            assertEquals(2, loaded.getMaxCapacity());
+            Horse bella = reader.readHorse("Second", "bella");
+            assertEquals("Arabian", bella.getBreed());
+            assertEquals(450.0, bella.getWeightKg());
+            assertNull(reader.readHorse("First", "Bella"));
+            assertNull(reader.readStable("Missing"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test stables saved with Java serialization still load")
+    void testLegacyStablesLoad() throws Exception {
+        String filename = tempDir.resolve("legacy.ser").toString();
+        serializationService.saveStablesLegacy(List.of(new Stable("Old", 4)), filename);
+
+        List<Stable> loaded = serializationService.loadStables(filename);
+
+        assertEquals(1, loaded.size());
+        assertEquals("Old", loaded.get(0).getStableName());
+    }
+
     @Test
     @DisplayName("Test serialization and deserialization of Horse")
     void testHorseSerialization() throws IOException, ClassNotFoundException {
@@ -140,6 +236,156 @@ class ServiceIntegrationTest {
         assertTrue(csvFile.length() > 0);
     }
 
+    @Test
+    @DisplayName("Test exported horses with commas, quotes and line breaks import unchanged")
+    void testHorseCSVRoundTrip() throws Exception {
+        String stableName = "North, \"Main\"\nBarn";
+        Stable stable = new Stable(stableName, 10);
+        stableDAO.save(stable);
+        List<Horse> originals = List.of(
+                new Horse("Bella, the \"Fast\"", "Arabian", HorseType.HOT_BLOODED,
+                          HorseCondition.SICK, 6, 15000.5, 450.25),
+                new Horse("Two\nLines", "Shire \"Heavy\", UK", HorseType.COLD_BLOODED,
+                          HorseCondition.TRAINING, 8, 8000.0, 700.0),
+                new Horse("\"\"", ",", HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 3, 1.0, 2.0));
+        for (Horse horse : originals) {
+            horse.setStable(stable);
+            horseDAO.save(horse);
+        }
+        Path csv = tempDir.resolve("round_trip.csv");
+        csvService.exportHorsesToCSV(csv.toString());
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            TestDatabaseUtil.clearDatabase();
+            Stable target = new Stable(stableName, 10);
+            stableDAO.save(target);
+
+            ImportReport report = parallel
+                    ? csvService.importHorsesFromCSVParallel(csv.toString(), 2, 2)
+                    : csvService.importHorsesFromCSVBatched(csv.toString(), 2);
+
+            assertFalse(report.hasFailures(), report.getFailures().toString());
+            assertEquals(originals.size(), report.getRowsImported());
+            for (Horse original : originals) {
+                Horse imported = horseDAO.findByName(original.getName());
+                assertNotNull(imported, original.getName());
+                assertEquals(original.getBreed(), imported.getBreed());
+                assertEquals(original.getType(), imported.getType());
+                assertEquals(original.getCondition(), imported.getCondition());
+                assertEquals(original.getAge(), imported.getAge());
+                assertEquals(original.getPrice(), imported.getPrice());
+                assertEquals(original.getWeightKg(), imported.getWeightKg());
+                assertEquals(target.getId(), imported.getStable().getId());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test parallel CSV import handles quotes, labels and bad rows")
+    void testParallelHorseCSVImport() throws Exception {
+        stableDAO.save(new Stable("North, East", 10));
+        Path csv = tempDir.resolve("horses.csv");
+        Files.writeString(csv, String.join("\n",
+                "Name,Breed,Type,Condition,Age,Price,Weight,StableName",
+                "\"Bella, the \"\"Fast\"\"\",Arabian,HOT_BLOODED,HEALTHY,6,15000.50,450.25,\"North, East\"",
+                "Argo,Shire,cold-blooded,training,8,8000,700.0,",
+                "",
+                "Broken,Shire,COLD_BLOODED,HEALTHY,eight,8000,700",
+                "Short,Shire\r",
+                "Coco,Thoroughbred,HOT_BLOODED,SICK,4,22000.0,380.0"));
+
+        ImportReport report = csvService.importHorsesFromCSVParallel(csv.toString(), 2, 2);
+
+        assertEquals(5, report.getRowsRead());
+        assertEquals(3, report.getRowsImported());
+        assertEquals(2, report.getRowsSkipped());
+        assertTrue(report.getFailures().get(0).startsWith("Line 5 skipped"));
+        Stable stable = stableDAO.findByName("North, East");
+        Horse bella = stable.search("Bella, the \"Fast\"");
+        assertNotNull(bella);
+        assertEquals(15000.5, bella.getPrice());
+        assertEquals(450.25, bella.getWeightKg());
+        assertEquals(3, horseDAO.findAll().size());
+    }
+
+    @Test
+    @DisplayName("Test batched CSV import across batch boundaries")
+    void testBatchedImportBatchBoundaries() throws Exception {
+        Path csv = tempDir.resolve("six.csv");
+        StringBuilder content = new StringBuilder("Name,Breed,Type,Condition,Age,Price,Weight,StableName\n");
+        for (int i = 1; i <= 6; i++) {
+            content.append("Horse").append(i).append(",Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,North Farm\n");
+        }
+        Files.writeString(csv, content);
+
+        // One row per batch, batches that divide the file, one that does not, one larger than it
+        for (int batchSize : new int[] {1, 3, 4, 10}) {
+            TestDatabaseUtil.clearDatabase();
+            Stable stable = new Stable("North Farm", 10);
+            stableDAO.save(stable);
+            // Cached with its occupancy before the import
+            assertEquals(0, stableDAO.findByIdWithoutHorses(stable.getId()).getCurrentLoad());
+
+            ImportReport report = csvService.importHorsesFromCSVBatched(csv.toString(), batchSize);
+            assertEquals(6, report.getRowsRead(), "batch size " + batchSize);
+            assertEquals(6, report.getRowsImported(), "batch size " + batchSize);
+            assertFalse(report.hasFailures(), "batch size " + batchSize);
+            assertEquals(6, horseDAO.findAll().size(), "batch size " + batchSize);
+            assertEquals(6, stableDAO.findByIdWithoutHorses(stable.getId()).getCurrentLoad(), "batch size " + batchSize);
+        }
+    }
+
+    @Test
+    @DisplayName("Test bad rows and failing batches do not stop the batched import")
+    void testBatchedImportKeepsGoing() throws Exception {
+        Path csv = tempDir.resolve("mixed.csv");
+        Files.writeString(csv, String.join("\n",
+                "Name,Breed,Type,Condition,Age,Price,Weight,StableName",
+                "H1,Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,",
+                "H2,Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,",
+                "Bad,Arabian,HOT_BLOODED,HEALTHY,old,1000.0,400.0,",
+                "H3,Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,",
+                // Longer than the name column, fails the whole batch in the database
+                "X".repeat(300) + ",Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,",
+                "H4,Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,",
+                "H5,Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,",
+                "H6,Arabian,HOT_BLOODED,HEALTHY,5,1000.0,400.0,"));
+
+        ImportReport report = csvService.importHorsesFromCSVBatched(csv.toString(), 3);
+
+        assertEquals(8, report.getRowsRead());
+        assertEquals(4, report.getRowsImported());
+        assertEquals(1, report.getRowsSkipped());
+        assertEquals(3, report.getRowsFailed());
+        assertEquals(2, report.getFailures().size());
+        assertTrue(report.getFailures().get(0).startsWith("Line 4 skipped"));
+        assertTrue(report.getFailures().get(1).startsWith("Batch of lines 6-8 rolled back"));
+        assertEquals(4, horseDAO.findAll().size());
+        assertNotNull(horseDAO.findByName("H6"));
+    }
+
+    @Test
+    @DisplayName("Test the failure summary lists a limited number of failures")
+    void testImportFailureSummary() {
+        ImportReport report = new ImportReport();
+        for (int line = 2; line < 27; line++) {
+            report.rowSkipped(line, "bad age");
+        }
+
+        String[] lines = report.failureSummary(20).split("\n");
+        assertEquals(21, lines.length);
+        assertEquals("Line 2 skipped: bad age", lines[0]);
+        assertEquals("... and 5 more", lines[20]);
+        assertTrue(report.failureSummary(3).endsWith("Line 4 skipped: bad age\n... and 22 more"));
+    }
+
+    @Test
+    @DisplayName("Test quoted fields with commas are kept together")
+    void testCsvFieldsSplit() {
+        assertArrayEquals(new String[] {"a, b", "c", "say \"hi\"", ""},
+                CsvFields.split("\"a, b\", c ,\"say \"\"hi\"\"\","));
+    }
+
     @Test
     @DisplayName("Test rating statistics with Criteria API")
     void testRatingStatistics() {
@@ -183,4 +429,100 @@ class ServiceIntegrationTest {
         assertEquals(3.0, (Double) horse2Stats.get("average"), 0.01);
         assertEquals(1L, horse2Stats.get("count"));
     }
+
+    @Test
+    @DisplayName("Test rating stats follow inserts, deletes and rebuild")
+    void testRatingStatsMaintained() {
+        Stable stable = new Stable("Stats Stable", 10);
+        stableDAO.save(stable);
+        Horse horse = new Horse("Rated", "Arabian", HorseType.HOT_BLOODED,
+                                HorseCondition.HEALTHY, 5, 10000.0, 400.0);
+        horse.setStable(stable);
+        horseDAO.save(horse);
+
+        Rating low = new Rating(1, horse, new Date(), "Poor");
+        ratingDAO.save(low);
+        ratingDAO.saveAll(List.of(new Rating(5, horse, new Date(), "Great"),
+                                            new Rating(3, horse, new Date(), "Fine")));
+
+        HorseRatingStats stats = ratingDAO.findStats(horse.getId());
+        assertEquals(3, stats.getRatingCount());
+        assertEquals(3.0, stats.getAverage(), 0.001);
+        assertEquals(1, stats.getMinRating());
+        assertEquals(5, stats.getMaxRating());
+
+        ratingDAO.delete(low);
+        stats = ratingDAO.findStats(horse.getId());
+        assertEquals(2, stats.getRatingCount());
+        assertEquals(3, stats.getMinRating());
+
+        assertEquals(1, ratingDAO.rebuildStats());
+        assertEquals(4.0, ratingDAO.findStats(horse.getId()).getAverage(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Test ratings stored before the stats table are counted on the next rating")
+    void testRatingStatsSeededFromExistingRatings() {
+        Stable stable = new Stable("Stats Stable", 10);
+        stableDAO.save(stable);
+        Horse horse = new Horse("Rated", "Arabian", HorseType.HOT_BLOODED,
+                                HorseCondition.HEALTHY, 5, 10000.0, 400.0);
+        horse.setStable(stable);
+        horseDAO.save(horse);
+        ratingDAO.saveAll(List.of(new Rating(2, horse, new Date(), "Old"),
+                                            new Rating(4, horse, new Date(), "Old")));
+
+        // An install upgraded with ratings but no stats rows yet
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.createQuery("DELETE FROM HorseRatingStats").executeUpdate();
+            transaction.commit();
+        }
+
+        ratingDAO.save(new Rating(3, horse, new Date(), "New"));
+
+        HorseRatingStats stats = ratingDAO.findStats(horse.getId());
+        assertEquals(3, stats.getRatingCount());
+        assertEquals(3.0, stats.getAverage(), 0.001);
+        assertEquals(2, stats.getMinRating());
+        assertEquals(4, stats.getMaxRating());
+    }
+
+    @Test
+    @DisplayName("Test concurrent first ratings of a horse all land in its stats")
+    void testConcurrentFirstRatings() throws Exception {
+        Stable stable = new Stable("Stats Stable", 10);
+        stableDAO.save(stable);
+        Horse horse = new Horse("Rated", "Arabian", HorseType.HOT_BLOODED,
+                                HorseCondition.HEALTHY, 5, 10000.0, 400.0);
+        horse.setStable(stable);
+        horseDAO.save(horse);
+
+        // More writers than pooled connections: seeding must not need a second one
+        int threads = 2 * DataSourceProvider.getDataSource().unwrap(HikariDataSource.class).getMaximumPoolSize();
+        long timeouts = DataSourceProvider.getMetrics().getTimeouts();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int value = i % 5 + 1;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ratingDAO.save(new Rating(value, horse, new Date(), "First"));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads, ratingDAO.findByHorseId(horse.getId()).size());
+        assertEquals(threads, ratingDAO.findStats(horse.getId()).getRatingCount());
+        assertEquals(timeouts, DataSourceProvider.getMetrics().getTimeouts());
+    }
 }
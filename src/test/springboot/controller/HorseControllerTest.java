@@ -1,6 +1,7 @@
 package springboot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import exceptions.IngestionQueueFullException;
 import model.HorseCondition;
 import model.HorseType;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,10 +13,15 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import springboot.dto.HorseRequest;
 import springboot.dto.HorseResponse;
+import springboot.dto.HorseSearchRequest;
+import springboot.dto.PageResponse;
 import springboot.dto.RatingRequest;
 import springboot.service.HorseService;
+import springboot.service.RatingIngestionService;
 import springboot.service.RatingService;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
@@ -37,6 +43,9 @@ public class HorseControllerTest {
     @MockBean
     private RatingService ratingService;
 
+    @MockBean
+    private RatingIngestionService ratingIngestionService;
+
     private HorseRequest horseRequest;
     private HorseResponse horseResponse;
 
@@ -90,6 +99,49 @@ public class HorseControllerTest {
         verify(horseService, times(1)).deleteHorse(1L);
     }
 
+    @Test
+    void testGetHorsesPage_DefaultLimit() throws Exception {
+        PageResponse<HorseResponse> page = new PageResponse<>(List.of(horseResponse), PageResponse.DEFAULT_LIMIT, null);
+        when(horseService.getHorsesPage(any(HorseSearchRequest.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/horse"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("TestHorse"))
+                .andExpect(jsonPath("$.limit").value(PageResponse.DEFAULT_LIMIT));
+
+        verify(horseService, times(1)).getHorsesPage(argThat(search ->
+                search.getLimit() == PageResponse.DEFAULT_LIMIT && search.getAfter() == null));
+    }
+
+    @Test
+    void testGetHorses_FilteredAndSorted() throws Exception {
+        PageResponse<HorseResponse> page = new PageResponse<>(List.of(horseResponse), 10, null);
+        when(horseService.getHorsesPage(any(HorseSearchRequest.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/horse")
+                        .param("stable", "1")
+                        .param("condition", "healthy")
+                        .param("breed", "Arabian")
+                        .param("minPrice", "5000")
+                        .param("sort", "price")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("TestHorse"));
+
+        verify(horseService, times(1)).getHorsesPage(argThat(search ->
+                search.getStable() == 1L && "healthy".equals(search.getCondition())
+                        && "Arabian".equals(search.getBreed()) && search.getMinPrice() == 5000.0
+                        && "price".equals(search.getSort()) && search.getLimit() == 10));
+    }
+
+    @Test
+    void testGetHorsesPage_InvalidLimit() throws Exception {
+        when(horseService.getHorsesPage(any(HorseSearchRequest.class))).thenThrow(new IllegalArgumentException("Limit must be between 1 and 500"));
+
+        mockMvc.perform(get("/api/horse").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetHorseRating_Success() throws Exception {
         when(ratingService.getAverageRating(anyLong())).thenReturn(4.5);
@@ -115,4 +167,30 @@ public class HorseControllerTest {
 
         verify(ratingService, times(1)).addRating(any(RatingRequest.class));
     }
+
+    @Test
+    void testAddRatingAsync_Accepted() throws Exception {
+        RatingRequest ratingRequest = new RatingRequest(1L, 4, "Good");
+        when(ratingIngestionService.getPendingCount()).thenReturn(1);
+
+        mockMvc.perform(post("/api/horse/rating/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ratingRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.pending").value(1));
+
+        verify(ratingIngestionService, times(1)).submit(any(RatingRequest.class));
+    }
+
+    @Test
+    void testAddRatingAsync_QueueFull() throws Exception {
+        RatingRequest ratingRequest = new RatingRequest(1L, 4, "Good");
+        doThrow(new IngestionQueueFullException(10)).when(ratingIngestionService).submit(any(RatingRequest.class));
+
+        mockMvc.perform(post("/api/horse/rating/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ratingRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
 }
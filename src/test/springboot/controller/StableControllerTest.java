@@ -1,14 +1,22 @@
 package springboot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import exceptions.StableNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.HorseCondition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import springboot.dto.ConditionChangeRequest;
 import springboot.dto.HorseResponse;
+import springboot.dto.PageResponse;
 import springboot.dto.StableRequest;
 import springboot.dto.StableResponse;
 import springboot.service.HorseService;
@@ -17,8 +25,11 @@ import springboot.service.StableService;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,9 +49,20 @@ public class StableControllerTest {
     @MockBean
     private HorseService horseService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private StableRequest stableRequest;
     private StableResponse stableResponse;
 
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
     @BeforeEach
     void setUp() {
         stableRequest = new StableRequest("TestStable", 10);
@@ -65,6 +87,34 @@ public class StableControllerTest {
         verify(stableService, times(1)).getAllStables();
     }
 
+    @Test
+    void testGetStablesPage_Success() throws Exception {
+        PageResponse<StableResponse> page = new PageResponse<>(Arrays.asList(stableResponse), 1, 1L);
+        when(stableService.getStablesPage(any(), anyInt())).thenReturn(page);
+
+        mockMvc.perform(get("/api/stable").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.limit").value(1))
+                .andExpect(jsonPath("$.nextCursor").value(1));
+
+        verify(stableService, times(1)).getStablesPage(null, 1);
+        verify(stableService, never()).getAllStables();
+    }
+
+    @Test
+    void testGetStablesPage_AfterCursor() throws Exception {
+        PageResponse<StableResponse> page = new PageResponse<>(List.of(), 10, null);
+        when(stableService.getStablesPage(any(), anyInt())).thenReturn(page);
+
+        mockMvc.perform(get("/api/stable").param("limit", "10").param("after", "42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(stableService, times(1)).getStablesPage(42L, 10);
+    }
+
     @Test
     void testGetStableHorses_Success() throws Exception {
         List<HorseResponse> horses = Arrays.asList(new HorseResponse());
@@ -132,4 +182,47 @@ public class StableControllerTest {
         verify(stableService, times(1)).getStableById(1L);
         verify(stableService, times(1)).getStableFillPercentage(1L);
     }
+
+    @Test
+    void testChangeHorseConditions_Success() throws Exception {
+        ConditionChangeRequest request = new ConditionChangeRequest(HorseCondition.QUARANTINE);
+        request.setBreed("Arabian");
+        when(stableService.changeHorseConditions(anyLong(), any(ConditionChangeRequest.class))).thenReturn(4);
+
+        mockMvc.perform(patch("/api/stable/1/condition")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stableId").value(1))
+                .andExpect(jsonPath("$.condition").value("QUARANTINE"))
+                .andExpect(jsonPath("$.affected").value(4));
+
+        verify(stableService, times(1)).changeHorseConditions(eq(1L), any(ConditionChangeRequest.class));
+    }
+
+    @Test
+    void testChangeHorseConditions_StableNotFound() throws Exception {
+        when(stableService.changeHorseConditions(anyLong(), any(ConditionChangeRequest.class)))
+                .thenThrow(new StableNotFoundException("Stable with id 9 not found"));
+
+        mockMvc.perform(patch("/api/stable/9/condition")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ConditionChangeRequest(HorseCondition.QUARANTINE))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetStableHorses_NotFoundCountedByCause() throws Exception {
+        when(stableService.getStableById(anyLong()))
+                .thenThrow(new StableNotFoundException("Stable with id 9 not found"));
+
+        mockMvc.perform(get("/api/stable/9"))
+                .andExpect(status().isInternalServerError());
+
+        assertEquals(1.0, meterRegistry.get("stable.api.errors")
+                .tag("exception", "StableNotFoundException")
+                .tag("status", "500")
+                .tag("uri", "/api/stable/{id}")
+                .counter().count());
+    }
 }
@@ -0,0 +1,85 @@
+package springboot.service;
+
+import dao.HorseDAO;
+import dao.RatingDAO;
+import exceptions.IngestionQueueFullException;
+import model.Horse;
+import model.HorseCondition;
+import model.HorseType;
+import org.junit.jupiter.api.*;
+import springboot.dto.RatingRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RatingIngestionServiceTest {
+    private static final int THREADS = 8;
+
+    private RatingDAO ratingDAO;
+    private RatingService ratingService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        ratingDAO = mock(RatingDAO.class);
+        HorseDAO horseDAO = mock(HorseDAO.class);
+        Horse horse = new Horse("Bella", "Arabian", HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        horse.setId(1L);
+        when(horseDAO.findById(1L)).thenAnswer(invocation -> {
+            Thread.yield(); // the lookup between the running check and the offer
+            return horse;
+        });
+        ratingService = new RatingService(ratingDAO, horseDAO);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Test every rating accepted before or during shutdown is written")
+    void testSubmitDuringShutdown() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            RatingIngestionService ingestion = new RatingIngestionService(ratingService, ratingDAO, 100_000, 50, 5);
+            ingestion.start();
+            AtomicLong accepted = new AtomicLong();
+            CountDownLatch submitting = new CountDownLatch(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    submitting.countDown();
+                    while (true) {
+                        try {
+                            ingestion.submit(new RatingRequest(1L, 4, "Good"));
+                            accepted.incrementAndGet();
+                        } catch (IngestionQueueFullException e) {
+                            Thread.yield();
+                        } catch (IllegalStateException e) {
+                            return null; // shut down
+                        }
+                    }
+                }));
+            }
+            submitting.await();
+
+            ingestion.shutdown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            assertEquals(0, ingestion.getPendingCount(), "round " + round);
+            assertEquals(accepted.get(), ingestion.getWrittenCount() + ingestion.getDroppedCount(), "round " + round);
+        }
+    }
+}
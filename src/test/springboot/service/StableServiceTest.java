@@ -0,0 +1,63 @@
+package springboot.service;
+
+import dao.HorseDAOImpl;
+import dao.StableDAOImpl;
+import exceptions.StableException;
+import facade.StableFacade;
+import model.HorseCondition;
+import model.HorseType;
+import org.junit.jupiter.api.*;
+import springboot.dto.HorseRequest;
+import springboot.dto.HorseResponse;
+import springboot.dto.StableRequest;
+import util.TestDatabaseUtil;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StableServiceTest {
+    private StableService stableService;
+    private HorseService horseService;
+    private Long stableId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TestDatabaseUtil.clearDatabase();
+        StableDAOImpl stableDAO = new StableDAOImpl();
+        HorseDAOImpl horseDAO = new HorseDAOImpl();
+        stableService = new StableService(stableDAO, horseDAO);
+        horseService = new HorseService(horseDAO, stableDAO);
+        stableId = stableService.addStable(new StableRequest("North Farm", 4)).getId();
+    }
+
+    @Test
+    @DisplayName("Test fill percentage follows horses added and deleted while the stable is cached")
+    void testFillPercentageAfterDelete() throws Exception {
+        // Caches the stable with its occupancy
+        assertEquals(0.0, stableService.getStableFillPercentage(stableId), 0.01);
+
+        HorseResponse bella = addHorse("Bella");
+        addHorse("Argo");
+        assertEquals(50.0, stableService.getStableFillPercentage(stableId), 0.01);
+
+        horseService.deleteHorse(bella.getId());
+        assertEquals(25.0, stableService.getStableFillPercentage(stableId), 0.01);
+        assertEquals(1, stableService.getStableById(stableId).getCurrentOccupancy());
+    }
+
+    @Test
+    @DisplayName("Test fill percentage drops after the facade removes a horse")
+    void testFillPercentageAfterFacadeRemove() throws Exception {
+        StableFacade facade = new StableFacade();
+        facade.addHorseToStable("North Farm", "Bella", "Arabian",
+                HorseType.HOT_BLOODED, HorseCondition.HEALTHY, 6, 15000.0, 450.0);
+        assertEquals(25.0, stableService.getStableFillPercentage(stableId), 0.01);
+
+        facade.removeHorseFromStable("North Farm", "Bella");
+        assertEquals(0.0, stableService.getStableFillPercentage(stableId), 0.01);
+    }
+
+    private HorseResponse addHorse(String name) throws StableException {
+        return horseService.addHorse(new HorseRequest(name, "Arabian", HorseType.HOT_BLOODED,
+                HorseCondition.HEALTHY, 5, 1000.0, 400.0, stableId));
+    }
+}
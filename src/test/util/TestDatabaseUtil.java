@@ -13,6 +13,7 @@ public class TestDatabaseUtil {
             
             // Delete all ratings first (has foreign keys)
             session.createQuery("DELETE FROM Rating").executeUpdate();
+            session.createQuery("DELETE FROM HorseRatingStats").executeUpdate();
             // Delete all horses
             session.createQuery("DELETE FROM Horse").executeUpdate();
             // Delete all stables